@@ -0,0 +1,101 @@
+package org.service.gateway.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.service.gateway.util.MpscRingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Фоновая запись журнала доступа. Потоки event loop только кладут запись в кольцевой буфер,
+ * форматирование и вывод в логгер "access-log" выполняет отдельный поток.
+ */
+@Slf4j
+@Component
+public class AccessLogAppender {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("access-log");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final MpscRingBuffer<AccessLogRecord> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public AccessLogAppender(AccessLogProperties properties) {
+        this.buffer = new MpscRingBuffer<>(properties.getBufferSize());
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = Thread.ofPlatform().name("access-log").daemon(true).start(this::drainLoop);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Передать запись фоновому потоку; при заполненном буфере запись теряется
+     */
+    public void append(AccessLogRecord record) {
+        if (!buffer.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (!drain()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        drain();
+    }
+
+    private boolean drain() {
+        boolean written = false;
+        AccessLogRecord record;
+        while ((record = buffer.poll()) != null) {
+            write(record);
+            written = true;
+        }
+
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            log.warn("Access log buffer overflow, {} records dropped", lost);
+        }
+        return written;
+    }
+
+    private void write(AccessLogRecord record) {
+        if (record.status() >= 500 || record.error() != null) {
+            ACCESS_LOG.warn(record.format());
+        } else {
+            ACCESS_LOG.info(record.format());
+        }
+    }
+
+    public record AccessLogRecord(String method, String path, String routeId, int status,
+                                  long latencyMillis, String correlationId, String error) {
+
+        private String format() {
+            return "method=" + method
+                    + " path=" + path
+                    + " route=" + (routeId != null ? routeId : "-")
+                    + " status=" + status
+                    + " latencyMs=" + latencyMillis
+                    + " correlationId=" + (correlationId != null ? correlationId : "-")
+                    + (error != null ? " error=\"" + error + "\"" : "");
+        }
+    }
+}
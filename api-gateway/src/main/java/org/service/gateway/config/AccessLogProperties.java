@@ -0,0 +1,19 @@
+package org.service.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Журнал доступа gateway: одна запись на запрос, пишется фоновым потоком
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gateway.access-log")
+@Data
+public class AccessLogProperties {
+    private boolean enabled = true;
+    // Доля успешных (1xx-3xx) запросов в журнале; 4xx, 5xx и ошибки пишутся всегда
+    private double successSampleRate = 0.1;
+    // Степень двойки; при переполнении записи отбрасываются, а не ждут
+    private int bufferSize = 8192;
+}
@@ -0,0 +1,21 @@
+package org.service.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Адаптивный лимит одновременных запросов на маршрут lb://
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+@Data
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+    private int initialLimit = 50;
+    private int minLimit = 5;
+    private int maxLimit = 500;
+    // Рост задержки до этого множителя не считается очередью
+    private double rttTolerance = 1.5;
+    private double backoffRatio = 0.9;
+}
@@ -0,0 +1,21 @@
+package org.service.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Проверка здоровья экземпляров из Eureka для /api/examples/health
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gateway.health-probe")
+@Data
+public class HealthProbeProperties {
+    private String path = "/actuator/health";
+    // Дедлайн одной проверки: зависший экземпляр не задерживает весь ответ
+    private Duration timeout = Duration.ofSeconds(2);
+    // Результат переиспользуется, чтобы опрос дашбордами не рассылал проверки на каждый вызов
+    private Duration cacheTtl = Duration.ofSeconds(5);
+}
@@ -0,0 +1,136 @@
+package org.service.gateway.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Статистика экземпляров сервисов для {@link LatencyAwareLoadBalancer}: запросы в работе,
+ * peak-EWMA задержки и штраф после ошибки. Заполняется через {@link LoadBalancerLifecycle},
+ * который ReactiveLoadBalancerClientFilter вызывает на каждый проксируемый запрос.
+ */
+@Component
+public class InstanceLatencyStats
+        implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    // Экземпляр без замеров считается не быстрее этого, чтобы на него не ушёл весь поток сразу
+    private static final long MIN_COST_NANOS = Duration.ofMillis(1).toNanos();
+
+    private final double decayNanos;
+    private final long errorPenaltyNanos;
+    private final Cache<String, Stats> stats = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10)) // Экземпляры, пропавшие из Eureka
+            .build();
+
+    public InstanceLatencyStats(LoadBalancerProperties properties) {
+        this.decayNanos = properties.getDecayTime().toNanos();
+        this.errorPenaltyNanos = properties.getErrorPenalty().toNanos();
+    }
+
+    /**
+     * Оценка стоимости запроса к экземпляру: задержка × (запросы в работе + 1)
+     */
+    public double cost(ServiceInstance instance) {
+        return statsFor(instance).cost(System.nanoTime());
+    }
+
+    public boolean isPenalized(ServiceInstance instance) {
+        return statsFor(instance).penaltyUntil - System.nanoTime() > 0;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext timed) {
+            timed.setRequestStartTime(System.nanoTime());
+        }
+        if (lbResponse.hasServer()) {
+            statsFor(lbResponse.getServer()).inFlight.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD
+                || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        Stats instance = statsFor(lbResponse.getServer());
+        instance.inFlight.updateAndGet(value -> Math.max(0, value - 1));
+
+        if (completionContext.status() == CompletionContext.Status.FAILED || isUnavailable(completionContext)) {
+            instance.penaltyUntil = now + errorPenaltyNanos;
+            return;
+        }
+
+        Object context = completionContext.getLoadBalancerRequest().getContext();
+        if (context instanceof TimedRequestContext timed && timed.getRequestStartTime() > 0) {
+            instance.observe(now - timed.getRequestStartTime(), now);
+        }
+    }
+
+    private boolean isUnavailable(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        ResponseData response = completionContext.getClientResponse();
+        HttpStatusCode status = response != null ? response.getHttpStatus() : null;
+        return status != null && (status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+
+    private Stats statsFor(ServiceInstance instance) {
+        String key = instance.getInstanceId() != null
+                ? instance.getServiceId() + "/" + instance.getInstanceId()
+                : instance.getServiceId() + "/" + instance.getHost() + ":" + instance.getPort();
+        return stats.get(key, k -> new Stats());
+    }
+
+    private final class Stats {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long penaltyUntil = System.nanoTime();
+        private double ewmaNanos;
+        private long updatedAt = System.nanoTime();
+
+        /**
+         * Peak-EWMA: рост задержки принимается сразу, снижение - постепенно,
+         * поэтому деградировавший экземпляр быстро теряет поток и возвращает его плавно
+         */
+        private synchronized void observe(long rttNanos, long now) {
+            if (rttNanos > ewmaNanos) {
+                ewmaNanos = rttNanos;
+            } else {
+                double weight = Math.exp(-(now - updatedAt) / decayNanos);
+                ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+            }
+            updatedAt = now;
+        }
+
+        private synchronized double cost(long now) {
+            // Без новых замеров оценка стремится к нулю, чтобы экземпляр снова получил запросы
+            double decayed = ewmaNanos * Math.exp(-(now - updatedAt) / decayNanos);
+            return Math.max(decayed, MIN_COST_NANOS) * (inFlight.get() + 1);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.service.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Подпись заголовка X-Internal-Principal, которым gateway передаёт сервисам проверенного пользователя
+ */
+@Configuration
+@ConfigurationProperties(prefix = "internal.principal")
+@Data
+public class InternalPrincipalProperties {
+    private String secret;
+    // Заголовок нужен только на время одного перехода gateway -> сервис
+    private Duration ttl = Duration.ofSeconds(60);
+}
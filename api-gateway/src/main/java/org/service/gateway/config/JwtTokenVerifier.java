@@ -0,0 +1,39 @@
+package org.service.gateway.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.service.common.util.VerifiedTokenCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Проверка JWT на входе в систему. Claims проверенного токена кэшируются по его SHA-256 до exp,
+ * повторные запросы с тем же токеном не проверяют подпись заново.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    private final JwtParser parser;
+    private final VerifiedTokenCache<Claims> claimsCache;
+
+    public JwtTokenVerifier(@Value("${jwt.secret}") String jwtSecret,
+                            @Value("${jwt.claims-cache.max-size:10000}") long maxSize,
+                            @Value("${jwt.claims-cache.max-ttl:1h}") Duration maxTtl) {
+        this.parser = Jwts.parser().setSigningKey(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8),
+                SignatureAlgorithm.HS256.getJcaName()));
+        this.claimsCache = new VerifiedTokenCache<>(maxSize, maxTtl, Claims::getExpiration);
+    }
+
+    /**
+     * Claims валидного токена; подделанный или истёкший токен приводит к JwtException
+     */
+    public Claims verify(String token) {
+        return claimsCache.get(token, t -> parser.parseClaimsJws(t).getBody());
+    }
+}
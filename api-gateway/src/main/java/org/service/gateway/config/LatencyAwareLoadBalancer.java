@@ -0,0 +1,82 @@
+package org.service.gateway.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Балансировка "power of two choices": из двух случайных экземпляров выбирается тот,
+ * у которого меньше оценка стоимости (peak-EWMA задержки × запросы в работе).
+ * Оштрафованный после ошибки экземпляр проигрывает любому неоштрафованному.
+ * Случайная пара, а не глобальный минимум, не даёт всем запросам одновременно уйти
+ * на один экземпляр, пока статистика по нему ещё не обновилась.
+ */
+@Slf4j
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final String serviceId;
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final InstanceLatencyStats stats;
+
+    public LatencyAwareLoadBalancer(String serviceId,
+                                    ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                    InstanceLatencyStats stats) {
+        this.serviceId = serviceId;
+        this.supplierProvider = supplierProvider;
+        this.stats = stats;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = select(instances);
+            if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                callback.selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    private Response<ServiceInstance> select(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return new DefaultResponse(better(a, b));
+    }
+
+    private ServiceInstance better(ServiceInstance a, ServiceInstance b) {
+        boolean aPenalized = stats.isPenalized(a);
+        boolean bPenalized = stats.isPenalized(b);
+        if (aPenalized != bPenalized) {
+            return aPenalized ? b : a;
+        }
+        return stats.cost(a) <= stats.cost(b) ? a : b;
+    }
+}
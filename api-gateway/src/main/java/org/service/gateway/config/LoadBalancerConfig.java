@@ -0,0 +1,13 @@
+package org.service.gateway.config;
+
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Все клиенты балансировщика (HOTEL-SERVICE, BOOKING-SERVICE и маршруты discovery locator)
+ * используют {@link LatencyAwareLoadBalancer} вместо round-robin
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
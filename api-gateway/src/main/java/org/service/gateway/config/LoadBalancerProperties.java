@@ -0,0 +1,20 @@
+package org.service.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Выбор экземпляра сервиса для маршрутов lb:// по задержке и числу запросов в работе
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+@Data
+public class LoadBalancerProperties {
+    // За это время вклад старого замера задержки в EWMA уменьшается в e раз
+    private Duration decayTime = Duration.ofSeconds(10);
+    // После ошибки экземпляр выбирается, только если все остальные тоже оштрафованы
+    private Duration errorPenalty = Duration.ofSeconds(5);
+}
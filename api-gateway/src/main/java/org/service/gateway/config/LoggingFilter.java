@@ -1,39 +1,77 @@
 package org.service.gateway.config;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.service.gateway.filter.CorrelationIdFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Журнал доступа: одна запись на запрос (метод, путь, маршрут, статус, задержка, correlation id).
+ * Успешные ответы попадают в журнал выборочно, ошибки - всегда. На потоке event loop
+ * запись только собирается и кладётся в буфер {@link AccessLogAppender}.
+ */
 @Component
 public class LoggingFilter implements GlobalFilter, Ordered {
 
-    private static final Logger logger = LoggerFactory.getLogger(LoggingFilter.class);
+    private final AccessLogProperties properties;
+    private final AccessLogAppender appender;
+
+    public LoggingFilter(AccessLogProperties properties, AccessLogAppender appender) {
+        this.properties = properties;
+        this.appender = appender;
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
 
-        logger.info("Incoming request: {} {} from {}",
-                request.getMethod(),
-                request.getPath(),
-                request.getRemoteAddress());
-
-        return chain.filter(exchange).then(Mono.fromRunnable(() -> {
-            logger.info("Response status: {} for {} {}",
-                    exchange.getResponse().getStatusCode(),
-                    request.getMethod(),
-                    request.getPath());
-        }));
+        long start = System.nanoTime();
+        Throwable[] failure = new Throwable[1];
+        return chain.filter(exchange)
+                .doOnError(e -> failure[0] = e)
+                .doFinally(signal -> record(exchange, start, signal, failure[0]));
     }
 
     @Override
     public int getOrder() {
         return Ordered.HIGHEST_PRECEDENCE;
     }
-}
\ No newline at end of file
+
+    private void record(ServerWebExchange exchange, long start, SignalType signal, Throwable failure) {
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        // Ошибка ещё не превращена в ответ обработчиком - в журнал как 500
+        int status = failure != null ? 500 : statusCode != null ? statusCode.value() : 200;
+        boolean sampled = failure != null || signal == SignalType.CANCEL || status >= 400
+                || ThreadLocalRandom.current().nextDouble() < properties.getSuccessSampleRate();
+        if (!sampled) {
+            return;
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String correlationId = exchange.getAttributeOrDefault(CorrelationIdFilter.CORRELATION_ID_ATTRIBUTE,
+                request.getHeaders().getFirst(CorrelationIdFilter.CORRELATION_ID_HEADER));
+
+        appender.append(new AccessLogAppender.AccessLogRecord(
+                request.getMethod().name(),
+                request.getPath().value(),
+                route != null ? route.getId() : null,
+                status,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                correlationId,
+                failure != null ? failure.toString() : signal == SignalType.CANCEL ? "cancelled" : null));
+    }
+}
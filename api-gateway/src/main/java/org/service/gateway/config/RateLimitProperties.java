@@ -0,0 +1,37 @@
+package org.service.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ограничение частоты запросов на gateway: корзина токенов на клиента и целевой сервис
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+@Data
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // Для сервисов без своего лимита
+    private Limit defaults = new Limit();
+    // Лимиты по serviceId из lb:// (общие для всех маршрутов на сервис); для маршрутов не lb:// - по id маршрута
+    private Map<String, Limit> services = new HashMap<>();
+    // Корзина без запросов дольше этого срока удаляется; срок должен превышать время полного пополнения
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private long maxBuckets = 100_000;
+
+    public Limit limitFor(String target) {
+        return services.getOrDefault(target, defaults);
+    }
+
+    @Data
+    public static class Limit {
+        // Допустимый всплеск запросов подряд
+        private long capacity = 100;
+        private double refillPerSecond = 50;
+    }
+}
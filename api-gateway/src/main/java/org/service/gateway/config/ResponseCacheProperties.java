@@ -0,0 +1,24 @@
+package org.service.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Микрокэш ответов на GET-запросы каталога
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gateway.response-cache")
+@Data
+public class ResponseCacheProperties {
+    private boolean enabled = true;
+    // Короткое время жизни: изменения каталога видны с задержкой не больше ttl
+    private Duration ttl = Duration.ofSeconds(5);
+    private long maxEntries = 1_000;
+    // Ответы больше этого размера проксируются, но не кэшируются
+    private int maxBodySize = 512 * 1024;
+    private List<String> paths = List.of("/api/hotels", "/api/hotels/rooms", "/api/hotels/rooms/recommend");
+}
@@ -2,19 +2,23 @@ package org.service.gateway.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.service.gateway.service.ClusterHealthService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
 @RestController
+@RequiredArgsConstructor
 @Tag(name = "Готовые примеры для тестирования API", description = "Реальные рабочие примеры запросов для тестирования системы")
 public class ExampleRequestsController {
 
+    private final ClusterHealthService clusterHealthService;
+
     @GetMapping("/api/examples/requests")
     @Operation(summary = "Получить готовые примеры API запросов",
             description = "Возвращает реальные рабочие примеры для тестирования всех функций системы")
@@ -186,23 +190,18 @@ public class ExampleRequestsController {
 
     @GetMapping("/api/examples/health")
     @Operation(summary = "Проверить здоровье системы",
-            description = "Проверка доступности всех компонентов системы")
+            description = "Параллельно опрашивает /actuator/health всех экземпляров из Eureka; результат кэшируется на несколько секунд")
     public Mono<ResponseEntity<Map<String, Object>>> getSystemHealth() {
-        var health = Map.of(
-                "timestamp", LocalDate.now().toString(),
-                "services", List.of(
-                        Map.of("name", "API Gateway", "url", "http://localhost:8080/actuator/health", "status", "CHECKING"),
-                        Map.of("name", "Booking Service", "url", "http://localhost:8080/booking-service/actuator/health", "status", "CHECKING"),
-                        Map.of("name", "Hotel Service", "url", "http://localhost:8080/hotel-service/actuator/health", "status", "CHECKING"),
-                        Map.of("name", "Eureka Server", "url", "http://localhost:8761", "status", "CHECKING")
-                ),
-                "documentation", Map.of(
-                        "swagger_ui", "http://localhost:8080/swagger-ui.html",
-                        "api_examples", "/api/examples/requests",
-                        "health_check", "/api/examples/health"
-                )
-        );
-
-        return Mono.just(ResponseEntity.ok(health));
+        return clusterHealthService.getHealth()
+                .map(health -> ResponseEntity.ok(Map.<String, Object>of(
+                        "timestamp", health.checkedAt().toString(),
+                        "status", health.status(),
+                        "instances", health.instances(),
+                        "documentation", Map.of(
+                                "swagger_ui", "http://localhost:8080/swagger-ui.html",
+                                "api_examples", "/api/examples/requests",
+                                "health_check", "/api/examples/health"
+                        )
+                )));
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package org.service.gateway.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "Результат проверки здоровья экземпляра сервиса")
+public class InstanceHealth {
+
+    @Schema(description = "Сервис в Eureka", example = "HOTEL-SERVICE")
+    private String serviceId;
+
+    @Schema(description = "Экземпляр в Eureka", example = "192.168.0.10:hotel-service:8081")
+    private String instanceId;
+
+    @Schema(description = "Проверенный адрес", example = "http://192.168.0.10:8081/actuator/health")
+    private String url;
+
+    @Schema(description = "Статус из /actuator/health или DOWN при ошибке", example = "UP")
+    private String status;
+
+    @Schema(description = "Время ответа, мс", example = "12")
+    private long latencyMs;
+
+    @Schema(description = "Причина неудачной проверки")
+    private String error;
+}
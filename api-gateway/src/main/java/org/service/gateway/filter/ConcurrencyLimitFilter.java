@@ -0,0 +1,111 @@
+package org.service.gateway.filter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.service.common.util.AdaptiveConcurrencyLimiter;
+import org.service.gateway.config.ConcurrencyLimitProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Адаптивный лимит одновременных запросов на каждый маршрут к сервисам (lb://HOTEL-SERVICE и т.п.).
+ * Когда сервис замедляется, лимит снижается, и лишние запросы сразу получают 503,
+ * а не копятся в очередях gateway и пуле соединений.
+ */
+@Slf4j
+@Component
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private static final String LOAD_BALANCED_SCHEME = "lb";
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || route == null
+                || !LOAD_BALANCED_SCHEME.equalsIgnoreCase(route.getUri().getScheme())) {
+            return chain.filter(exchange);
+        }
+
+        AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(route.getId(), this::createLimiter);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            log.warn("Concurrency limit {} reached for route {}", limiter.getLimit(), route.getId());
+            return reject(exchange.getResponse());
+        }
+
+        return chain.filter(exchange)
+                .doOnSuccess(done -> {
+                    if (isOverload(exchange.getResponse().getStatusCode())) {
+                        permit.onDropped();
+                    } else {
+                        permit.onSuccess();
+                    }
+                })
+                .doOnError(e -> permit.onDropped())
+                .doOnCancel(permit::onIgnore);
+    }
+
+    @Override
+    public int getOrder() {
+        // После ограничения частоты и микрокэша: ответы из кэша не занимают место под лимитом
+        return Ordered.HIGHEST_PRECEDENCE + 4;
+    }
+
+    private AdaptiveConcurrencyLimiter createLimiter(String routeId) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                properties.getInitialLimit(), properties.getMinLimit(), properties.getMaxLimit(),
+                properties.getRttTolerance(), properties.getBackoffRatio());
+
+        Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit of concurrent requests")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests in flight to the route")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.concurrency.dropped", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                .description("Requests rejected by the concurrency limit")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private boolean isOverload(HttpStatusCode status) {
+        if (status == null) {
+            return false;
+        }
+        int code = status.value();
+        return code == 502 || code == 503 || code == 504;
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return response.setComplete();
+    }
+}
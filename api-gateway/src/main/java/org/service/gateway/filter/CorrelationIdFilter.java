@@ -12,16 +12,23 @@ import java.util.UUID;
 @Component
 public class CorrelationIdFilter implements GlobalFilter {
 
+    public static final String CORRELATION_ID_HEADER = "X-Correlation-ID";
+    /**
+     * Атрибут запроса с итоговым correlation id (для журнала доступа)
+     */
+    public static final String CORRELATION_ID_ATTRIBUTE = CorrelationIdFilter.class.getName() + ".correlationId";
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         String correlationId = exchange.getRequest().getHeaders()
-                .getFirst("X-Correlation-ID");
+                .getFirst(CORRELATION_ID_HEADER);
         if (correlationId == null) {
             correlationId = UUID.randomUUID().toString();
         }
+        exchange.getAttributes().put(CORRELATION_ID_ATTRIBUTE, correlationId);
 
         ServerHttpRequest request = exchange.getRequest().mutate()
-                .header("X-Correlation-ID", correlationId)
+                .header(CORRELATION_ID_HEADER, correlationId)
                 .build();
 
         return chain.filter(exchange.mutate().request(request).build());
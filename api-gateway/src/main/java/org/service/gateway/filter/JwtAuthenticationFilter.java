@@ -0,0 +1,106 @@
+package org.service.gateway.filter;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.service.common.util.InternalPrincipal;
+import org.service.gateway.config.InternalPrincipalProperties;
+import org.service.gateway.config.JwtTokenVerifier;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Проверка JWT на входе: запрос с невалидным или истёкшим токеном получает 401 до маршрутизации.
+ * Для валидного токена сервисам передаётся подписанный заголовок X-Internal-Principal,
+ * поэтому подпись JWT проверяется один раз на gateway, а не в каждом сервисе по пути запроса.
+ * Запросы без токена проходят дальше: доступ к публичным эндпоинтам решают сервисы.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
+
+    /**
+     * Атрибут запроса с ролью проверенного пользователя (для фильтров, зависящих от прав)
+     */
+    public static final String ROLE_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".role";
+    /**
+     * Атрибут запроса с именем проверенного пользователя
+     */
+    public static final String USERNAME_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".username";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenVerifier tokenVerifier;
+    private final InternalPrincipalProperties internalPrincipalProperties;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        // Заголовок выставляет только gateway, присланный клиентом отбрасывается
+        ServerHttpRequest.Builder forwarded = exchange.getRequest().mutate()
+                .headers(headers -> headers.remove(InternalPrincipal.HEADER));
+
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            Claims claims;
+            try {
+                claims = tokenVerifier.verify(header.substring(BEARER_PREFIX.length()));
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Rejected JWT for {}: {}", exchange.getRequest().getPath(), e.getMessage());
+                return reject(exchange.getResponse());
+            }
+            forwarded.header(InternalPrincipal.HEADER, sign(claims));
+            if (claims.getSubject() != null) {
+                exchange.getAttributes().put(USERNAME_ATTRIBUTE, claims.getSubject());
+            }
+            Object role = claims.get("roles");
+            if (role != null) {
+                exchange.getAttributes().put(ROLE_ATTRIBUTE, role.toString());
+            }
+        }
+
+        return chain.filter(exchange.mutate().request(forwarded.build()).build());
+    }
+
+    @Override
+    public int getOrder() {
+        // Сразу после логирования, до балансировки и проксирования
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+
+    private String sign(Claims claims) {
+        long expiresAt = Instant.now().plus(internalPrincipalProperties.getTtl()).getEpochSecond();
+        if (claims.getExpiration() != null) {
+            expiresAt = Math.min(expiresAt, claims.getExpiration().toInstant().getEpochSecond());
+        }
+
+        Object userId = claims.get("userId");
+        Object role = claims.get("roles");
+
+        return InternalPrincipal.sign(
+                claims.getSubject(),
+                userId instanceof Number number ? number.longValue() : null,
+                role != null ? role.toString() : null,
+                expiresAt,
+                internalPrincipalProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+        return response.setComplete();
+    }
+}
@@ -0,0 +1,108 @@
+package org.service.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.service.gateway.config.RateLimitProperties;
+import org.service.gateway.util.TokenBucket;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты запросов в памяти gateway, без Redis.
+ * У каждой пары (целевой сервис, клиент) своя корзина токенов; клиент - пользователь из JWT,
+ * для анонимных запросов - IP-адрес. Корзина выбирается по сервису lb://, а не по id маршрута:
+ * иначе тот же запрос через маршрут-псевдоним (/booking-service/**) обходил бы лимит сервиса.
+ * Сверх лимита запрос получает 429 с Retry-After и не доходит до сервисов. Корзины без запросов удаляются по истечении idle-timeout.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private final RateLimitProperties properties;
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        this.properties = properties;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getIdleTimeout())
+                .maximumSize(properties.getMaxBuckets())
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+
+        String client = clientKey(exchange);
+        String target = target(route);
+        RateLimitProperties.Limit limit = properties.limitFor(target);
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(target + " " + client,
+                key -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond(), now));
+
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            log.debug("Rate limit exceeded for {} on {} (route {})", client, target, route.getId());
+            return reject(exchange.getResponse(), waitNanos);
+        }
+
+        exchange.getResponse().getHeaders().set(REMAINING_HEADER, String.valueOf(bucket.available(now)));
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        // После проверки JWT, чтобы лимит считался по пользователю, а не по общему IP
+        return Ordered.HIGHEST_PRECEDENCE + 2;
+    }
+
+    /**
+     * Сервис из Eureka для маршрутов lb://, для остальных - id маршрута
+     */
+    private String target(Route route) {
+        URI uri = route.getUri();
+        if ("lb".equals(uri.getScheme()) && uri.getHost() != null) {
+            return uri.getHost().toLowerCase(Locale.ROOT);
+        }
+        return route.getId();
+    }
+
+    private String clientKey(ServerWebExchange exchange) {
+        String username = exchange.getAttribute(JwtAuthenticationFilter.USERNAME_ATTRIBUTE);
+        if (username != null) {
+            return "user:" + username;
+        }
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        return "ip:" + (remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : "unknown");
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, long waitNanos) {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.getHeaders().set(REMAINING_HEADER, "0");
+        return response.setComplete();
+    }
+}
@@ -0,0 +1,219 @@
+package org.service.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.service.gateway.config.ResponseCacheProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Микрокэш успешных GET-ответов каталога (список отелей и номеров) на короткое время.
+ * Ключ - путь с параметрами и роль пользователя: ответы каталога зависят только от роли.
+ * Одновременные промахи по одному ключу объединяются: в сервис уходит один запрос,
+ * остальные ждут его ответ (single-flight). Если ответ не подходит для кэша
+ * (не 200, слишком большой, no-store), ожидающие запросы проксируются сами.
+ */
+@Slf4j
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final String ANONYMOUS_SCOPE = "anonymous";
+    // Заголовки соединения и длины не переносятся в ответ из кэша
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase(),
+            "x-correlation-id");
+
+    private final ResponseCacheProperties properties;
+    private final AsyncCache<String, CachedResponse> cache;
+
+    public ResponseCacheFilter(ResponseCacheProperties properties) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .maximumSize(properties.getMaxEntries())
+                .buildAsync();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!isCacheable(request)) {
+            return chain.filter(exchange);
+        }
+
+        String key = cacheKey(exchange);
+        CompletableFuture<CachedResponse> promise = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> existing = cache.asMap().putIfAbsent(key, promise);
+
+        if (existing != null) {
+            // Ответ уже есть или его загружает другой запрос; отмена ожидающего не отменяет загрузку
+            return Mono.fromFuture(existing, true)
+                    .map(cached -> write(exchange, cached))
+                    // Загрузка не дала ответа для кэша (promise завершён null) - запрос идёт в сервис сам
+                    .defaultIfEmpty(Mono.defer(() -> chain.filter(exchange)))
+                    .flatMap(Function.identity());
+        }
+
+        log.debug("Response cache miss for {}", key);
+        exchange.getResponse().getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+        ServerHttpResponse recording = new RecordingResponse(exchange.getResponse(), key, promise);
+        return chain.filter(exchange.mutate().response(recording).build())
+                // Ответ без тела, ошибка или отмена: ожидающие запросы идут в сервис сами
+                .doFinally(signal -> discard(key, promise));
+    }
+
+    @Override
+    public int getOrder() {
+        // После проверки JWT (ключу кэша нужна роль) и ограничения частоты
+        return Ordered.HIGHEST_PRECEDENCE + 3;
+    }
+
+    private boolean isCacheable(ServerHttpRequest request) {
+        if (!properties.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return false;
+        }
+        List<String> cacheControl = request.getHeaders().getOrEmpty(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl.stream().anyMatch(value -> value.contains("no-cache") || value.contains("no-store"))) {
+            return false;
+        }
+        return properties.getPaths().contains(request.getPath().value());
+    }
+
+    private String cacheKey(ServerWebExchange exchange) {
+        String scope = exchange.getAttributeOrDefault(JwtAuthenticationFilter.ROLE_ATTRIBUTE, ANONYMOUS_SCOPE);
+        String query = exchange.getRequest().getURI().getRawQuery();
+        return scope + " " + exchange.getRequest().getPath().value() + (query != null ? "?" + query : "");
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(CACHE_STATUS_HEADER, "HIT");
+
+        // Клиент уже держит эту версию (ETag hotel-service) - тело не отправляется
+        String eTag = cached.headers().getETag();
+        if (eTag != null && exchange.checkNotModified(eTag)) {
+            return response.setComplete();
+        }
+
+        response.setStatusCode(cached.status());
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    private void discard(String key, CompletableFuture<CachedResponse> promise) {
+        if (promise.complete(null)) {
+            cache.asMap().remove(key, promise);
+        }
+    }
+
+    private boolean isStorable(HttpStatusCode status, HttpHeaders headers, long size) {
+        if (status == null || status.value() != HttpStatus.OK.value() || size > properties.getMaxBodySize()) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private"));
+    }
+
+    private record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    /**
+     * Ответ, который по пути к клиенту копирует тело и заголовки для ожидающих запросов.
+     * Тело не собирается целиком перед отправкой: части уходят клиенту сразу, а запись
+     * прекращается, как только ответ оказывается больше maxBodySize.
+     */
+    private class RecordingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final CompletableFuture<CachedResponse> promise;
+        // Только поток, выдающий части тела; null - ответ не кэшируется
+        private ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+        private RecordingResponse(ServerHttpResponse delegate, String key, CompletableFuture<CachedResponse> promise) {
+            super(delegate);
+            this.key = key;
+            this.promise = promise;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            // Content-Length известен заранее: большой или неподходящий ответ не копируется вовсе
+            if (!isStorable(getStatusCode(), getHeaders(), getHeaders().getContentLength())) {
+                stopRecording();
+                return super.writeWith(body);
+            }
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(this::copy)
+                    .doOnComplete(this::record));
+        }
+
+        private void copy(DataBuffer buffer) {
+            if (recorded == null) {
+                return;
+            }
+            int size = buffer.readableByteCount();
+            if (recorded.size() + size > properties.getMaxBodySize()) {
+                log.debug("Response for {} exceeds {} bytes, not caching", key, properties.getMaxBodySize());
+                stopRecording();
+                return;
+            }
+            // Копия не сдвигает позицию чтения: буфер дальше уходит клиенту
+            int position = buffer.readPosition();
+            byte[] bytes = new byte[size];
+            buffer.read(bytes);
+            buffer.readPosition(position);
+            recorded.write(bytes, 0, size);
+        }
+
+        private void stopRecording() {
+            recorded = null;
+            discard(key, promise);
+        }
+
+        private void record() {
+            if (recorded == null) {
+                return;
+            }
+            byte[] bytes = recorded.toByteArray();
+            recorded = null;
+
+            HttpHeaders headers = new HttpHeaders();
+            getHeaders().forEach((name, values) -> {
+                if (!SKIPPED_HEADERS.contains(name.toLowerCase()) && !CACHE_STATUS_HEADER.equalsIgnoreCase(name)) {
+                    headers.put(name, List.copyOf(values));
+                }
+            });
+            // Время жизни считается с момента, когда ответ получен
+            if (promise.complete(new CachedResponse(getStatusCode(), HttpHeaders.readOnlyHttpHeaders(headers), bytes))) {
+                cache.put(key, CompletableFuture.completedFuture(promise.join()));
+                log.debug("Cached response for {} ({} bytes)", key, bytes.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.service.gateway.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.service.gateway.config.HealthProbeProperties;
+import org.service.gateway.dto.InstanceHealth;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Сводка здоровья кластера: все экземпляры из Eureka опрашиваются параллельно,
+ * у каждой проверки свой дедлайн. Сводка кэшируется на cacheTtl; запросы, пришедшие
+ * во время опроса, ждут его результат, а не запускают новый.
+ */
+@Slf4j
+@Service
+public class ClusterHealthService {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> HEALTH_BODY =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final WebClient webClient;
+    private final HealthProbeProperties properties;
+    private final Mono<ClusterHealth> cachedHealth;
+
+    public ClusterHealthService(ReactiveDiscoveryClient discoveryClient,
+                                WebClient.Builder webClientBuilder,
+                                HealthProbeProperties properties) {
+        this.discoveryClient = discoveryClient;
+        this.webClient = webClientBuilder.build();
+        this.properties = properties;
+        this.cachedHealth = Mono.defer(this::probeAll)
+                .cache(health -> properties.getCacheTtl(), error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    public Mono<ClusterHealth> getHealth() {
+        return cachedHealth;
+    }
+
+    private Mono<ClusterHealth> probeAll() {
+        return discoveryClient.getServices()
+                .flatMap(discoveryClient::getInstances)
+                .flatMap(this::probe)
+                .sort(Comparator.comparing(InstanceHealth::getServiceId)
+                        .thenComparing(InstanceHealth::getInstanceId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .collectList()
+                .map(instances -> new ClusterHealth(Instant.now(), overallStatus(instances), instances));
+    }
+
+    private Mono<InstanceHealth> probe(ServiceInstance instance) {
+        String url = instance.getUri() + properties.getPath();
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient.get()
+                    .uri(url)
+                    // Actuator отвечает 503 с телом {"status":"DOWN"} - статус берём из тела при любом коде
+                    .exchangeToMono(response -> response.bodyToMono(HEALTH_BODY)
+                            .map(body -> String.valueOf(body.getOrDefault("status", "UNKNOWN")))
+                            .defaultIfEmpty(response.statusCode().is2xxSuccessful() ? "UP" : "DOWN"))
+                    .timeout(properties.getTimeout())
+                    .map(status -> health(instance, url, status, start, null))
+                    .onErrorResume(e -> {
+                        String error = e instanceof TimeoutException
+                                ? "No response within " + properties.getTimeout().toMillis() + " ms"
+                                : e.getMessage();
+                        log.debug("Health probe failed for {}: {}", url, error);
+                        return Mono.just(health(instance, url, "DOWN", start, error));
+                    });
+        });
+    }
+
+    private InstanceHealth health(ServiceInstance instance, String url, String status, long start, String error) {
+        return InstanceHealth.builder()
+                .serviceId(instance.getServiceId())
+                .instanceId(instance.getInstanceId())
+                .url(url)
+                .status(status)
+                .latencyMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .error(error)
+                .build();
+    }
+
+    private String overallStatus(List<InstanceHealth> instances) {
+        if (instances.isEmpty()) {
+            return "UNKNOWN";
+        }
+        long up = instances.stream().filter(instance -> "UP".equals(instance.getStatus())).count();
+        if (up == instances.size()) {
+            return "UP";
+        }
+        return up == 0 ? "DOWN" : "DEGRADED";
+    }
+
+    public record ClusterHealth(Instant checkedAt, String status, List<InstanceHealth> instances) {
+    }
+}
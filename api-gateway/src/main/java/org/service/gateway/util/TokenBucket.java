@@ -0,0 +1,59 @@
+package org.service.gateway.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Неблокирующая корзина токенов: пополняется непрерывно со скоростью {@code refillPerSecond}
+ * до {@code capacity}. Состояние неизменяемое и заменяется через CAS, поэтому параллельные
+ * запросы одного клиента не ждут друг друга на блокировке.
+ */
+public final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private final AtomicReference<State> state;
+
+    public TokenBucket(long capacity, double refillPerSecond, long nowNanos) {
+        if (capacity <= 0 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Capacity and refill rate must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / NANOS_PER_SECOND;
+        this.state = new AtomicReference<>(new State(capacity, nowNanos));
+    }
+
+    /**
+     * Взять один токен.
+     *
+     * @return 0, если токен получен, иначе сколько наносекунд ждать следующего
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            State current = state.get();
+            double tokens = refilled(current, nowNanos);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - 1, Math.max(nowNanos, current.updatedAt())))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Целое число доступных токенов на момент {@code nowNanos}
+     */
+    public long available(long nowNanos) {
+        return (long) refilled(state.get(), nowNanos);
+    }
+
+    private double refilled(State current, long nowNanos) {
+        long elapsed = Math.max(0, nowNanos - current.updatedAt());
+        return Math.min(capacity, current.tokens() + elapsed * tokensPerNano);
+    }
+
+    private record State(double tokens, long updatedAt) {
+    }
+}
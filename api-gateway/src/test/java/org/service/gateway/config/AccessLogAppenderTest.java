@@ -0,0 +1,82 @@
+package org.service.gateway.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogAppenderTest {
+
+    private final Logger accessLog = (Logger) LoggerFactory.getLogger("access-log");
+    private final Logger appenderLog = (Logger) LoggerFactory.getLogger(AccessLogAppender.class);
+    private final ListAppender<ILoggingEvent> accessEvents = new ListAppender<>();
+    private final ListAppender<ILoggingEvent> appenderEvents = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        accessEvents.start();
+        appenderEvents.start();
+        accessLog.addAppender(accessEvents);
+        appenderLog.addAppender(appenderEvents);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLog.detachAppender(accessEvents);
+        appenderLog.detachAppender(appenderEvents);
+    }
+
+    @Test
+    void stop_FlushesBufferedRecords() throws InterruptedException {
+        AccessLogAppender appender = new AccessLogAppender(properties(8));
+        appender.start();
+
+        appender.append(record(200, null));
+        appender.append(record(503, null));
+        appender.append(record(200, "Connection refused"));
+        appender.stop();
+
+        List<ILoggingEvent> events = List.copyOf(accessEvents.list);
+        assertEquals(3, events.size());
+        assertEquals(Level.INFO, events.get(0).getLevel());
+        assertEquals("method=GET path=/api/hotels route=hotel-service status=200 latencyMs=12 correlationId=corr-1",
+                events.get(0).getFormattedMessage());
+        assertEquals(Level.WARN, events.get(1).getLevel());
+        assertEquals(Level.WARN, events.get(2).getLevel());
+        assertTrue(events.get(2).getFormattedMessage().endsWith(" error=\"Connection refused\""));
+    }
+
+    @Test
+    void append_BufferFull_DropsAndReportsCount() throws InterruptedException {
+        AccessLogAppender appender = new AccessLogAppender(properties(2));
+
+        // Поток записи ещё не запущен, поэтому буфер заполняется
+        for (int i = 0; i < 5; i++) {
+            appender.append(record(200, null));
+        }
+        appender.start();
+        appender.stop();
+
+        assertEquals(2, accessEvents.list.size());
+        assertTrue(appenderEvents.list.stream()
+                .anyMatch(event -> event.getFormattedMessage().equals("Access log buffer overflow, 3 records dropped")));
+    }
+
+    private AccessLogProperties properties(int bufferSize) {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setBufferSize(bufferSize);
+        return properties;
+    }
+
+    private AccessLogAppender.AccessLogRecord record(int status, String error) {
+        return new AccessLogAppender.AccessLogRecord("GET", "/api/hotels", "hotel-service", status, 12, "corr-1", error);
+    }
+}
@@ -0,0 +1,118 @@
+package org.service.gateway.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstanceLatencyStatsTest {
+
+    private static final double MIN_COST_NANOS = Duration.ofMillis(1).toNanos();
+
+    private InstanceLatencyStats stats;
+    private ServiceInstance instance;
+
+    @BeforeEach
+    void setUp() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.setDecayTime(Duration.ofMinutes(10));
+        properties.setErrorPenalty(Duration.ofMinutes(1));
+        stats = new InstanceLatencyStats(properties);
+        instance = new DefaultServiceInstance("hotel-1", "hotel-service", "10.0.0.1", 8081, false);
+    }
+
+    @Test
+    void cost_RequestsInFlight_Multiplied() {
+        assertEquals(MIN_COST_NANOS, stats.cost(instance));
+
+        start(instance);
+        start(instance);
+
+        assertEquals(3 * MIN_COST_NANOS, stats.cost(instance));
+    }
+
+    @Test
+    void onComplete_SlowResponse_RaisesCostImmediately() {
+        // Arrange
+        Request<RequestDataContext> request = start(instance);
+        shiftStart(request, Duration.ofMillis(200));
+
+        // Act
+        stats.onComplete(completion(CompletionContext.Status.SUCCESS, request, HttpStatus.OK));
+
+        // Assert
+        double cost = stats.cost(instance);
+        assertTrue(cost > Duration.ofMillis(150).toNanos(), "cost " + cost);
+        assertFalse(stats.isPenalized(instance));
+    }
+
+    @Test
+    void onComplete_FasterResponse_LowersCostGradually() {
+        Request<RequestDataContext> slow = start(instance);
+        shiftStart(slow, Duration.ofMillis(200));
+        stats.onComplete(completion(CompletionContext.Status.SUCCESS, slow, HttpStatus.OK));
+        double peak = stats.cost(instance);
+
+        stats.onComplete(completion(CompletionContext.Status.SUCCESS, start(instance), HttpStatus.OK));
+
+        // Время затухания 10 минут: один быстрый ответ почти не снижает пик
+        assertTrue(stats.cost(instance) > peak * 0.9, "cost " + stats.cost(instance));
+    }
+
+    @Test
+    void onComplete_Unavailable_Penalized() {
+        Request<RequestDataContext> request = start(instance);
+
+        stats.onComplete(completion(CompletionContext.Status.SUCCESS, request, HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertTrue(stats.isPenalized(instance));
+        assertEquals(MIN_COST_NANOS, stats.cost(instance));
+    }
+
+    @Test
+    void onComplete_Failed_Penalized() {
+        Request<RequestDataContext> request = start(instance);
+
+        stats.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED,
+                new IllegalStateException("Connection refused"), request, new DefaultResponse(instance)));
+
+        assertTrue(stats.isPenalized(instance));
+    }
+
+    @Test
+    void onComplete_Discarded_Ignored() {
+        Request<RequestDataContext> request = start(instance);
+
+        stats.onComplete(new CompletionContext<>(CompletionContext.Status.DISCARD, request, new DefaultResponse(instance)));
+
+        assertFalse(stats.isPenalized(instance));
+    }
+
+    private Request<RequestDataContext> start(ServiceInstance server) {
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+        stats.onStartRequest(request, new DefaultResponse(server));
+        return request;
+    }
+
+    private void shiftStart(Request<RequestDataContext> request, Duration ago) {
+        request.getContext().setRequestStartTime(request.getContext().getRequestStartTime() - ago.toNanos());
+    }
+
+    private CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completion(
+            CompletionContext.Status status, Request<RequestDataContext> request, HttpStatus httpStatus) {
+        ResponseData response = new ResponseData(httpStatus, new HttpHeaders(), null, null);
+        return new CompletionContext<>(status, request, new DefaultResponse(instance), response);
+    }
+}
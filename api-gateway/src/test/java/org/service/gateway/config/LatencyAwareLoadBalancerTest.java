@@ -0,0 +1,92 @@
+package org.service.gateway.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LatencyAwareLoadBalancerTest {
+
+    private final ServiceInstance first = new DefaultServiceInstance("hotel-1", "hotel-service", "10.0.0.1", 8081, false);
+    private final ServiceInstance second = new DefaultServiceInstance("hotel-2", "hotel-service", "10.0.0.2", 8081, false);
+
+    private InstanceLatencyStats stats;
+
+    @BeforeEach
+    void setUp() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.setDecayTime(Duration.ofMinutes(10));
+        properties.setErrorPenalty(Duration.ofMinutes(1));
+        stats = new InstanceLatencyStats(properties);
+    }
+
+    @Test
+    void choose_NoInstances_EmptyResponse() {
+        Response<ServiceInstance> response = balancer(List.of()).choose(new DefaultRequest<>()).block();
+
+        assertNotNull(response);
+        assertFalse(response.hasServer());
+    }
+
+    @Test
+    void choose_SingleInstance_ReturnedEvenIfPenalized() {
+        fail(first);
+
+        Response<ServiceInstance> response = balancer(List.of(first)).choose(new DefaultRequest<>()).block();
+
+        assertEquals(first, response.getServer());
+    }
+
+    @Test
+    void choose_OnePenalized_OtherAlwaysChosen() {
+        fail(first);
+        LatencyAwareLoadBalancer balancer = balancer(List.of(first, second));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(second, balancer.choose(new DefaultRequest<>()).block().getServer());
+        }
+    }
+
+    @Test
+    void choose_MoreRequestsInFlight_LessLoadedChosen() {
+        stats.onStartRequest(new DefaultRequest<>(new RequestDataContext()), new DefaultResponse(second));
+        LatencyAwareLoadBalancer balancer = balancer(List.of(first, second));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(first, balancer.choose(new DefaultRequest<>()).block().getServer());
+        }
+    }
+
+    private void fail(ServiceInstance instance) {
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+        stats.onStartRequest(request, new DefaultResponse(instance));
+        stats.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED,
+                new IllegalStateException("Connection refused"), request, new DefaultResponse(instance)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private LatencyAwareLoadBalancer balancer(List<ServiceInstance> instances) {
+        ServiceInstanceListSupplier supplier = mock(ServiceInstanceListSupplier.class);
+        when(supplier.get(any())).thenReturn(Flux.just(instances));
+        ObjectProvider<ServiceInstanceListSupplier> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(supplier);
+        return new LatencyAwareLoadBalancer("hotel-service", provider, stats);
+    }
+}
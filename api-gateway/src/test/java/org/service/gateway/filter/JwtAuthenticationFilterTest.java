@@ -0,0 +1,126 @@
+package org.service.gateway.filter;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.service.common.util.InternalPrincipal;
+import org.service.gateway.config.InternalPrincipalProperties;
+import org.service.gateway.config.JwtTokenVerifier;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String JWT_SECRET = "testJwtSecretKeyForGatewayFilterTests";
+    private static final String PRINCIPAL_SECRET = "testInternalPrincipalSecret";
+
+    private JwtAuthenticationFilter filter;
+    private AtomicReference<ServerWebExchange> forwarded;
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        InternalPrincipalProperties properties = new InternalPrincipalProperties();
+        properties.setSecret(PRINCIPAL_SECRET);
+        filter = new JwtAuthenticationFilter(new JwtTokenVerifier(JWT_SECRET, 100, Duration.ofHours(1)), properties);
+        forwarded = new AtomicReference<>();
+        chain = exchange -> {
+            forwarded.set(exchange);
+            return Mono.empty();
+        };
+    }
+
+    @Test
+    void filter_ClientPrincipalWithoutToken_Stripped() {
+        // Arrange
+        String forged = InternalPrincipal.sign("admin", 1L, "ADMIN", Instant.now().getEpochSecond() + 60,
+                PRINCIPAL_SECRET.getBytes(StandardCharsets.UTF_8));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/bookings")
+                .header(InternalPrincipal.HEADER, forged));
+
+        // Act
+        filter.filter(exchange, chain).block();
+
+        // Assert
+        assertNotNull(forwarded.get());
+        assertNull(forwarded.get().getRequest().getHeaders().getFirst(InternalPrincipal.HEADER));
+        assertNull(forwarded.get().getAttribute(JwtAuthenticationFilter.ROLE_ATTRIBUTE));
+    }
+
+    @Test
+    void filter_ClientPrincipalWithToken_ReplacedBySignedFromJwt() {
+        // Arrange
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/bookings")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("alice", "USER", Duration.ofMinutes(10)))
+                .header(InternalPrincipal.HEADER, "admin..QURNSU4.9999999999.forged"));
+
+        // Act
+        filter.filter(exchange, chain).block();
+
+        // Assert
+        assertEquals(1, forwarded.get().getRequest().getHeaders().get(InternalPrincipal.HEADER).size());
+        InternalPrincipal principal = InternalPrincipal.verify(
+                forwarded.get().getRequest().getHeaders().getFirst(InternalPrincipal.HEADER),
+                PRINCIPAL_SECRET.getBytes(StandardCharsets.UTF_8));
+        assertNotNull(principal);
+        assertEquals("alice", principal.getUsername());
+        assertEquals(7L, principal.getUserId());
+        assertEquals("USER", principal.getRole());
+        assertEquals("USER", forwarded.get().getAttribute(JwtAuthenticationFilter.ROLE_ATTRIBUTE));
+        assertEquals("alice", forwarded.get().getAttribute(JwtAuthenticationFilter.USERNAME_ATTRIBUTE));
+    }
+
+    @Test
+    void filter_InvalidToken_Unauthorized() {
+        // Arrange
+        String token = Jwts.builder()
+                .setSubject("alice")
+                .claim("roles", "ADMIN")
+                .signWith(SignatureAlgorithm.HS256, "otherSecretKeyForForgedTokens".getBytes(StandardCharsets.UTF_8))
+                .compact();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/bookings")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+
+        // Act
+        filter.filter(exchange, chain).block();
+
+        // Assert
+        assertNull(forwarded.get());
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void filter_ExpiredToken_Unauthorized() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/bookings")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("alice", "USER", Duration.ofMinutes(-1))));
+
+        filter.filter(exchange, chain).block();
+
+        assertNull(forwarded.get());
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    }
+
+    private String token(String username, String role, Duration validFor) {
+        return Jwts.builder()
+                .setSubject(username)
+                .claim("userId", 7)
+                .claim("roles", role)
+                .setExpiration(Date.from(Instant.now().plus(validFor)))
+                .signWith(SignatureAlgorithm.HS256, JWT_SECRET.getBytes(StandardCharsets.UTF_8))
+                .compact();
+    }
+}
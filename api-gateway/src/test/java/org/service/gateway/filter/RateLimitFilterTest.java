@@ -0,0 +1,89 @@
+package org.service.gateway.filter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.service.gateway.config.RateLimitProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private static final Route BOOKINGS = route("booking-service", "lb://BOOKING-SERVICE");
+    private static final Route BOOKINGS_ALIAS = route("booking-service-all", "lb://booking-service");
+    private static final Route HOTELS = route("hotel-service", "lb://HOTEL-SERVICE");
+
+    private RateLimitFilter filter;
+    private AtomicInteger upstreamCalls;
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.Limit bookingLimit = new RateLimitProperties.Limit();
+        bookingLimit.setCapacity(2);
+        bookingLimit.setRefillPerSecond(0.001);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getServices().put("booking-service", bookingLimit);
+        filter = new RateLimitFilter(properties);
+        upstreamCalls = new AtomicInteger();
+        chain = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.empty();
+        };
+    }
+
+    @Test
+    void filter_AliasRoute_SharesServiceBucket() {
+        // Arrange
+        filter.filter(exchange("/api/bookings", BOOKINGS), chain).block();
+        filter.filter(exchange("/api/bookings", BOOKINGS), chain).block();
+        MockServerWebExchange alias = exchange("/booking-service/api/bookings", BOOKINGS_ALIAS);
+
+        // Act
+        filter.filter(alias, chain).block();
+
+        // Assert
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, alias.getResponse().getStatusCode());
+        assertNotNull(alias.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void filter_OtherService_NotLimitedByBookingBucket() {
+        // Arrange
+        filter.filter(exchange("/booking-service/api/bookings", BOOKINGS_ALIAS), chain).block();
+        filter.filter(exchange("/booking-service/api/bookings", BOOKINGS_ALIAS), chain).block();
+        MockServerWebExchange hotels = exchange("/api/hotels", HOTELS);
+
+        // Act
+        filter.filter(hotels, chain).block();
+
+        // Assert
+        assertEquals(3, upstreamCalls.get());
+        assertNull(hotels.getResponse().getStatusCode());
+        assertEquals("99", hotels.getResponse().getHeaders().getFirst("X-RateLimit-Remaining"));
+    }
+
+    private static Route route(String id, String uri) {
+        return Route.async()
+                .id(id)
+                .uri(uri)
+                .predicate(exchange -> true)
+                .build();
+    }
+
+    private MockServerWebExchange exchange(String path, Route route) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+}
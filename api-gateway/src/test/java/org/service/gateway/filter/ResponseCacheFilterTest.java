@@ -0,0 +1,160 @@
+package org.service.gateway.filter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.service.gateway.config.ResponseCacheProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheFilterTest {
+
+    private ResponseCacheProperties properties;
+    private ResponseCacheFilter filter;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ResponseCacheProperties();
+        properties.setMaxBodySize(16);
+        filter = new ResponseCacheFilter(properties);
+        upstreamCalls = new AtomicInteger();
+    }
+
+    @Test
+    void filter_ConcurrentMisses_SingleUpstreamCall() {
+        // Arrange
+        Sinks.Empty<Void> upstreamReady = Sinks.empty();
+        GatewayFilterChain chain = exchange -> upstreamReady.asMono()
+                .then(Mono.defer(() -> upstream(HttpStatus.OK, "hotels").filter(exchange)));
+        MockServerWebExchange first = exchange();
+        MockServerWebExchange second = exchange();
+
+        // Act
+        CompletableFuture<Void> firstDone = filter.filter(first, chain).toFuture();
+        CompletableFuture<Void> secondDone = filter.filter(second, chain).toFuture();
+        assertFalse(secondDone.isDone());
+        upstreamReady.tryEmitEmpty();
+        firstDone.join();
+        secondDone.join();
+
+        // Assert
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("MISS", first.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("HIT", second.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("hotels", second.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void filter_ErrorStatus_WaitingRequestProxiedAndNotCached() {
+        // Arrange
+        Sinks.Empty<Void> upstreamReady = Sinks.empty();
+        GatewayFilterChain chain = exchange -> upstreamReady.asMono()
+                .then(Mono.defer(() -> upstream(HttpStatus.SERVICE_UNAVAILABLE, "down").filter(exchange)));
+        MockServerWebExchange waiting = exchange();
+
+        // Act
+        CompletableFuture<Void> firstDone = filter.filter(exchange(), chain).toFuture();
+        CompletableFuture<Void> waitingDone = filter.filter(waiting, chain).toFuture();
+        upstreamReady.tryEmitEmpty();
+        firstDone.join();
+        waitingDone.join();
+        filter.filter(exchange(), chain).block();
+
+        // Assert
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, waiting.getResponse().getStatusCode());
+        assertEquals("down", waiting.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void filter_UpstreamFails_EntryDiscarded() {
+        // Arrange
+        GatewayFilterChain failing = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.error(new IllegalStateException("Connection refused"));
+        };
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> filter.filter(exchange(), failing).block());
+        filter.filter(exchange(), upstream(HttpStatus.OK, "hotels")).block();
+
+        // Assert
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void filter_ContentLengthOverLimit_PassedThroughNotCached() {
+        // Arrange
+        GatewayFilterChain chain = exchange -> {
+            exchange.getResponse().getHeaders().setContentLength(32);
+            return upstream(HttpStatus.OK, "0123456789abcdef", "0123456789abcdef").filter(exchange);
+        };
+        MockServerWebExchange first = exchange();
+
+        // Act
+        filter.filter(first, chain).block();
+        filter.filter(exchange(), chain).block();
+
+        // Assert
+        assertEquals(2, upstreamCalls.get());
+        assertEquals("0123456789abcdef0123456789abcdef", first.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void filter_StreamedBodyOverLimit_PassedThroughNotCached() {
+        // Arrange
+        GatewayFilterChain chain = upstream(HttpStatus.OK, "0123456789", "abcdef", "ghij");
+        MockServerWebExchange first = exchange();
+
+        // Act
+        filter.filter(first, chain).block();
+        MockServerWebExchange second = exchange();
+        filter.filter(second, chain).block();
+
+        // Assert
+        assertEquals(2, upstreamCalls.get());
+        assertEquals("0123456789abcdefghij", first.getResponse().getBodyAsString().block());
+        assertEquals("MISS", second.getResponse().getHeaders().getFirst("X-Cache"));
+    }
+
+    @Test
+    void filter_StreamedBodyWithinLimit_Cached() {
+        // Arrange
+        GatewayFilterChain chain = upstream(HttpStatus.OK, "0123456789", "abcdef");
+
+        // Act
+        filter.filter(exchange(), chain).block();
+        MockServerWebExchange second = exchange();
+        filter.filter(second, chain).block();
+
+        // Assert
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("0123456789abcdef", second.getResponse().getBodyAsString().block());
+    }
+
+    private MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/hotels"));
+    }
+
+    private GatewayFilterChain upstream(HttpStatus status, String... chunks) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(status);
+            return response.writeWith(Flux.fromArray(chunks)
+                    .map(chunk -> response.bufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+}
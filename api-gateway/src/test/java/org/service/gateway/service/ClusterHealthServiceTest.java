@@ -0,0 +1,124 @@
+package org.service.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.service.gateway.config.HealthProbeProperties;
+import org.service.gateway.dto.InstanceHealth;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClusterHealthServiceTest {
+
+    private ReactiveDiscoveryClient discoveryClient;
+    private HealthProbeProperties properties;
+    private AtomicInteger probes;
+
+    @BeforeEach
+    void setUp() {
+        discoveryClient = mock(ReactiveDiscoveryClient.class);
+        properties = new HealthProbeProperties();
+        properties.setTimeout(Duration.ofMillis(200));
+        probes = new AtomicInteger();
+    }
+
+    @Test
+    void getHealth_MixedInstances_DegradedWithPerInstanceStatus() {
+        // Arrange
+        when(discoveryClient.getServices()).thenReturn(Flux.just("hotel-service", "booking-service"));
+        when(discoveryClient.getInstances("hotel-service")).thenReturn(Flux.just(
+                instance("hotel-2", "hotel-service", "slow"),
+                instance("hotel-1", "hotel-service", "up")));
+        when(discoveryClient.getInstances("booking-service")).thenReturn(Flux.just(
+                instance("booking-1", "booking-service", "down")));
+
+        // Act
+        ClusterHealthService.ClusterHealth health = service().getHealth().block();
+
+        // Assert
+        assertNotNull(health);
+        assertEquals("DEGRADED", health.status());
+        List<InstanceHealth> instances = health.instances();
+        assertEquals(List.of("booking-1", "hotel-1", "hotel-2"),
+                instances.stream().map(InstanceHealth::getInstanceId).toList());
+        assertEquals("DOWN", instances.get(0).getStatus());
+        assertNull(instances.get(0).getError());
+        assertEquals("UP", instances.get(1).getStatus());
+        assertEquals("http://up:8080/actuator/health", instances.get(1).getUrl());
+        assertEquals("DOWN", instances.get(2).getStatus());
+        assertEquals("No response within 200 ms", instances.get(2).getError());
+    }
+
+    @Test
+    void getHealth_AllUp_Up() {
+        when(discoveryClient.getServices()).thenReturn(Flux.just("hotel-service"));
+        when(discoveryClient.getInstances("hotel-service")).thenReturn(Flux.just(instance("hotel-1", "hotel-service", "up")));
+
+        assertEquals("UP", service().getHealth().block().status());
+    }
+
+    @Test
+    void getHealth_NoInstances_Unknown() {
+        when(discoveryClient.getServices()).thenReturn(Flux.empty());
+
+        ClusterHealthService.ClusterHealth health = service().getHealth().block();
+
+        assertEquals("UNKNOWN", health.status());
+        assertTrue(health.instances().isEmpty());
+    }
+
+    @Test
+    void getHealth_WithinCacheTtl_ProbesOnce() {
+        // Arrange
+        when(discoveryClient.getServices()).thenReturn(Flux.just("hotel-service"));
+        when(discoveryClient.getInstances("hotel-service")).thenReturn(Flux.just(instance("hotel-1", "hotel-service", "up")));
+        ClusterHealthService service = service();
+
+        // Act
+        ClusterHealthService.ClusterHealth first = service.getHealth().block();
+        ClusterHealthService.ClusterHealth second = service.getHealth().block();
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, probes.get());
+    }
+
+    private ClusterHealthService service() {
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            probes.incrementAndGet();
+            return switch (request.url().getHost()) {
+                case "up" -> Mono.just(health(HttpStatus.OK, "UP"));
+                // Actuator отдаёт DOWN вместе с кодом 503
+                case "down" -> Mono.just(health(HttpStatus.SERVICE_UNAVAILABLE, "DOWN"));
+                default -> Mono.never();
+            };
+        });
+        return new ClusterHealthService(discoveryClient, builder, properties);
+    }
+
+    private ClientResponse health(HttpStatus status, String value) {
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"status\":\"" + value + "\"}")
+                .build();
+    }
+
+    private ServiceInstance instance(String instanceId, String serviceId, String host) {
+        return new DefaultServiceInstance(instanceId, serviceId, host, 8080, false);
+    }
+}
@@ -0,0 +1,91 @@
+package org.service.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void tryAcquire_Exhausted_ReturnsWaitUntilNextToken() {
+        TokenBucket bucket = new TokenBucket(2, 10, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+
+        assertEquals(SECOND / 10, bucket.tryAcquire(0));
+        assertEquals(0, bucket.available(0));
+    }
+
+    @Test
+    void tryAcquire_AfterRefill_GrantsAgain() {
+        TokenBucket bucket = new TokenBucket(1, 10, 0);
+        assertEquals(0, bucket.tryAcquire(0));
+
+        assertTrue(bucket.tryAcquire(SECOND / 20) > 0);
+        assertEquals(0, bucket.tryAcquire(SECOND / 10));
+    }
+
+    @Test
+    void available_LongIdle_CappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(5, 100, 0);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(0);
+        }
+
+        assertEquals(5, bucket.available(60 * SECOND));
+    }
+
+    @Test
+    void tryAcquire_ClockGoesBack_DoesNotRefill() {
+        TokenBucket bucket = new TokenBucket(1, 1, 10 * SECOND);
+        assertEquals(0, bucket.tryAcquire(10 * SECOND));
+
+        // Устаревшая отметка времени от параллельного запроса не добавляет токенов
+        assertTrue(bucket.tryAcquire(5 * SECOND) > 0);
+        assertEquals(0, bucket.available(10 * SECOND));
+    }
+
+    @Test
+    void tryAcquire_ConcurrentClients_NeverExceedsCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 1, 0);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 50; i++) {
+                    if (bucket.tryAcquire(0) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+    }
+
+    @Test
+    void constructor_NonPositiveRate_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0, 0));
+    }
+}
@@ -1,20 +1,35 @@
 package org.service.booking.aop;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.service.booking.util.CorrelationContext;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
 
 @Aspect
 @Component
 public class CorrelationAspect {
 
     /**
-     * Инициализирует Correlation ID, если он ещё не установлен.
-     * Вызывается до каждого метода контроллера.
+     * Устанавливает Correlation ID запроса до каждого метода контроллера.
+     * Берётся из заголовка X-Correlation-ID (его передаёт клиент или gateway), иначе генерируется новый.
+     * Значение перезаписывается на каждом запросе: по нему работает идемпотентность,
+     * поэтому id предыдущего запроса на том же потоке использовать нельзя.
      */
-    @Before("execution(* org.service.hotel.controller.*.*(..))")
+    @Before("execution(* org.service.booking.controller.*.*(..))")
     public void initCorrelationId() {
-        CorrelationContext.initCorrelationIdIfAbsent();
+        String correlationId = null;
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            correlationId = request.getHeader(CorrelationContext.CORRELATION_ID_HEADER);
+        }
+
+        CorrelationContext.setCorrelationId(correlationId != null && !correlationId.isBlank()
+                ? correlationId
+                : UUID.randomUUID().toString());
     }
-}
\ No newline at end of file
+}
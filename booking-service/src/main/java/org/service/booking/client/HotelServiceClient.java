@@ -1,148 +1,300 @@
 package org.service.booking.client;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.service.booking.config.HotelServiceClientProperties;
+import org.service.booking.dto.GroupHoldRequest;
+import org.service.booking.dto.RoomAvailabilityRequest;
 import org.service.booking.dto.RoomDTO;
+import org.service.booking.dto.RoomReleaseRequest;
+import org.service.booking.exception.HotelServiceOverloadedException;
+import org.service.common.util.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Неблокирующий клиент hotel-service. Методы возвращают {@link Mono} и не занимают поток
+ * на время удалённого вызова. Запросы на чтение при ошибке возвращают "пустой" результат
+ * (пустой список или false). Шаги саги превращают в false/пустой Mono только окончательный
+ * отказ hotel-service (409, 404); таймауты, 5xx, ошибки соединения и авторизации передаются
+ * вызывающему, чтобы диспетчер outbox повторил шаг с задержкой.
+ * Число одновременных вызовов ограничено адаптивным лимитом: когда hotel-service замедляется,
+ * лишние вызовы сразу завершаются {@link HotelServiceOverloadedException} вместо очереди в пуле соединений.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class HotelServiceClient {
 
     private final WebClient webClient;
+    private final String baseUrl;
+    // Шаги саги всегда идут напрямую: gateway не пропускает внутренние эндпоинты hotel-service
+    private final WebClient internalWebClient;
+    private final String internalBaseUrl;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Duration retryAfter;
 
-    // Теперь обращаемся через gateway
-    @Value("${gateway.url:http://localhost:8080}")
-    private String gatewayUrl;
-
-    public List<RoomDTO> findAvailableRooms(LocalDate startDate, LocalDate endDate) {
-        try {
-            // Через gateway: /api/hotels/rooms/available
-            String url = UriComponentsBuilder.fromHttpUrl(gatewayUrl + "/api/hotels/rooms/available")
-                    .queryParam("startDate", startDate)
-                    .queryParam("endDate", endDate)
-                    .toUriString();
-
-            log.debug("Calling hotel service via gateway: {}", url);
-
-            RoomDTO[] rooms = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(RoomDTO[].class)
-                    .block();
-
-            List<RoomDTO> result = rooms != null ? Arrays.asList(rooms) : Collections.emptyList();
-            log.info("Found {} available rooms for dates {} to {}", result.size(), startDate, endDate);
-
-            return result;
-
-        } catch (WebClientResponseException.NotFound e) {
-            log.info("No available rooms found for dates {} to {}", startDate, endDate);
-            return Collections.emptyList();
-        } catch (Exception e) {
-            log.error("Error finding available rooms for dates {} to {}: {}", startDate, endDate, e.getMessage());
-            return Collections.emptyList();
+    public HotelServiceClient(@Qualifier("webClient") WebClient gatewayWebClient,
+                              @Qualifier("loadBalancedWebClient") WebClient loadBalancedWebClient,
+                              HotelServiceClientProperties properties,
+                              MeterRegistry meterRegistry,
+                              @Value("${gateway.url:http://localhost:8080}") String gatewayUrl) {
+        if (properties.getMode() == HotelServiceClientProperties.Mode.DIRECT) {
+            // Напрямую в hotel-service, минуя gateway
+            this.webClient = loadBalancedWebClient;
+            this.baseUrl = "http://" + properties.getServiceId();
+        } else {
+            this.webClient = gatewayWebClient;
+            this.baseUrl = gatewayUrl;
         }
-    }
+        this.internalWebClient = loadBalancedWebClient;
+        this.internalBaseUrl = "http://" + properties.getServiceId();
+        log.info("Hotel service client mode: {}, base url: {}", properties.getMode(), baseUrl);
 
-    public boolean checkRoomAvailability(Long roomId, LocalDate startDate, LocalDate endDate) {
-        try {
-            // Через gateway: /api/hotels/rooms/{roomId}/availability
-            String url = UriComponentsBuilder.fromHttpUrl(gatewayUrl + "/api/hotels/rooms/{roomId}/availability")
-                    .queryParam("startDate", startDate)
-                    .queryParam("endDate", endDate)
-                    .buildAndExpand(roomId)
-                    .toUriString();
-
-            log.debug("Checking room availability via gateway: {}", url);
-
-            Boolean isAvailable = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(Boolean.class)
-                    .block();
-
-            boolean available = Boolean.TRUE.equals(isAvailable);
-            log.info("Room {} availability for dates {} to {}: {}", roomId, startDate, endDate, available);
-
-            return available;
-
-        } catch (WebClientResponseException.NotFound e) {
-            log.warn("Room {} not found", roomId);
-            return false;
-        } catch (Exception e) {
-            log.error("Error checking room availability for room {}: {}", roomId, e.getMessage());
-            return false;
+        HotelServiceClientProperties.ConcurrencyLimit limit = properties.getConcurrencyLimit();
+        this.limiter = limit.isEnabled()
+                ? new AdaptiveConcurrencyLimiter(limit.getInitialLimit(), limit.getMinLimit(), limit.getMaxLimit(),
+                        limit.getRttTolerance(), limit.getBackoffRatio())
+                : null;
+        this.retryAfter = limit.getRetryAfter();
+        if (limiter != null) {
+            Gauge.builder("client.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive limit of concurrent calls")
+                    .tag("client", "hotel-service")
+                    .register(meterRegistry);
+            Gauge.builder("client.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Calls in flight")
+                    .tag("client", "hotel-service")
+                    .register(meterRegistry);
+            FunctionCounter.builder("client.concurrency.dropped", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                    .description("Calls rejected by the concurrency limit")
+                    .tag("client", "hotel-service")
+                    .register(meterRegistry);
         }
     }
 
-    public boolean lockRoom(Long roomId, LocalDate startDate, LocalDate endDate) {
-        try {
-            // Через gateway: /api/hotels/rooms/{roomId}/lock
-            String url = UriComponentsBuilder.fromHttpUrl(gatewayUrl + "/api/hotels/rooms/{roomId}/lock")
-                    .queryParam("startDate", startDate)
-                    .queryParam("endDate", endDate)
-                    .buildAndExpand(roomId)
-                    .toUriString();
-
-            log.debug("Locking room via gateway: {}", url);
-
-            Boolean locked = webClient.post()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(Boolean.class)
-                    .block();
-
-            boolean success = Boolean.TRUE.equals(locked);
-            log.info("Room {} lock result for dates {} to {}: {}", roomId, startDate, endDate, success);
-
-            return success;
-
-        } catch (WebClientResponseException.Conflict e) {
-            log.warn("Room {} is already locked for dates {} to {}", roomId, startDate, endDate);
-            return false;
-        } catch (WebClientResponseException.NotFound e) {
-            log.warn("Room {} not found for locking", roomId);
-            return false;
-        } catch (Exception e) {
-            log.error("Error locking room {}: {}", roomId, e.getMessage());
-            return false;
+    /**
+     * Автоподбор: hotel-service выбирает наименее загруженный свободный номер
+     * и блокирует его за один вызов. Пустой Mono, если свободных номеров нет.
+     */
+    public Mono<RoomDTO> allocateRoom(LocalDate startDate, LocalDate endDate, String correlationId) {
+        // /api/hotels/rooms/allocate
+        String url = internalBaseUrl + "/api/hotels/rooms/allocate";
+
+        log.debug("Allocating room: {}", url);
+
+        return internalWebClient.post()
+                .uri(url)
+                .bodyValue(RoomAvailabilityRequest.builder()
+                        .startDate(startDate)
+                        .endDate(endDate)
+                        .correlationId(correlationId)
+                        .build())
+                .retrieve()
+                .bodyToMono(RoomDTO.class)
+                .transform(this::limited)
+                .doOnNext(room -> log.info("Allocated room {} for dates {} to {}", room.getId(), startDate, endDate))
+                .onErrorResume(WebClientResponseException.Conflict.class, e -> {
+                    log.info("No rooms to allocate for dates {} to {}", startDate, endDate);
+                    return Mono.empty();
+                })
+                .doOnError(e -> log.error("Error allocating room for dates {} to {}: {}",
+                        startDate, endDate, e.getMessage()));
+    }
+
+    /**
+     * Групповая блокировка одним вызовом: hotel-service блокирует все номера или ни одного.
+     * Номера возвращаются в порядке элементов; пустой Mono, если номера группы заняты или не существуют.
+     */
+    public Mono<List<RoomDTO>> holdRooms(LocalDate startDate, LocalDate endDate, List<GroupHoldRequest.Item> rooms) {
+        // /api/hotels/rooms/hold-batch
+        String url = internalBaseUrl + "/api/hotels/rooms/hold-batch";
+
+        log.debug("Holding {} rooms: {}", rooms.size(), url);
+
+        return internalWebClient.post()
+                .uri(url)
+                .bodyValue(GroupHoldRequest.builder()
+                        .startDate(startDate)
+                        .endDate(endDate)
+                        .rooms(rooms)
+                        .build())
+                .retrieve()
+                .bodyToMono(RoomDTO[].class)
+                .transform(this::limited)
+                .map(held -> Arrays.asList(held))
+                .doOnNext(held -> log.info("Held {} rooms for dates {} to {}", held.size(), startDate, endDate))
+                .onErrorResume(this::isRejected, e -> {
+                    log.info("Group of {} rooms is not available for dates {} to {}", rooms.size(), startDate, endDate);
+                    return Mono.empty();
+                })
+                .doOnError(e -> log.error("Error holding {} rooms for dates {} to {}: {}",
+                        rooms.size(), startDate, endDate, e.getMessage()));
+    }
+
+    public Mono<Boolean> checkRoomAvailability(Long roomId, LocalDate startDate, LocalDate endDate) {
+        // /api/hotels/rooms/{roomId}/availability
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl + "/api/hotels/rooms/{roomId}/availability")
+                .queryParam("startDate", startDate)
+                .queryParam("endDate", endDate)
+                .buildAndExpand(roomId)
+                .toUriString();
+
+        log.debug("Checking room availability: {}", url);
+
+        return webClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToMono(Boolean.class)
+                .transform(this::limited)
+                .map(Boolean.TRUE::equals)
+                .defaultIfEmpty(false)
+                .doOnNext(available -> log.info("Room {} availability for dates {} to {}: {}",
+                        roomId, startDate, endDate, available))
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> {
+                    log.warn("Room {} not found", roomId);
+                    return Mono.just(false);
+                })
+                .onErrorResume(e -> !(e instanceof HotelServiceOverloadedException), e -> {
+                    log.error("Error checking room availability for room {}: {}", roomId, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    public Mono<Boolean> lockRoom(Long roomId, LocalDate startDate, LocalDate endDate, String correlationId) {
+        // /api/hotels/rooms/{roomId}/confirm-availability
+        String url = UriComponentsBuilder.fromHttpUrl(internalBaseUrl + "/api/hotels/rooms/{roomId}/confirm-availability")
+                .buildAndExpand(roomId)
+                .toUriString();
+
+        log.debug("Locking room: {}", url);
+
+        return internalWebClient.post()
+                .uri(url)
+                .bodyValue(RoomAvailabilityRequest.builder()
+                        .startDate(startDate)
+                        .endDate(endDate)
+                        .correlationId(correlationId)
+                        .build())
+                .retrieve()
+                .bodyToMono(Boolean.class)
+                .transform(this::limited)
+                .map(Boolean.TRUE::equals)
+                .defaultIfEmpty(false)
+                .doOnNext(success -> log.info("Room {} lock result for dates {} to {}: {}",
+                        roomId, startDate, endDate, success))
+                .onErrorResume(WebClientResponseException.Conflict.class, e -> {
+                    log.warn("Room {} is already locked for dates {} to {}", roomId, startDate, endDate);
+                    return Mono.just(false);
+                })
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> {
+                    log.warn("Room {} not found for locking", roomId);
+                    return Mono.just(false);
+                })
+                .doOnError(e -> log.error("Error locking room {}: {}", roomId, e.getMessage()));
+    }
+
+    /**
+     * false - блокировки саги уже нет; ошибки вызова передаются диспетчеру для повтора
+     */
+    public Mono<Boolean> confirmRoom(Long roomId, LocalDate startDate, LocalDate endDate, String correlationId) {
+        // /api/hotels/rooms/{roomId}/confirm
+        String url = UriComponentsBuilder.fromHttpUrl(internalBaseUrl + "/api/hotels/rooms/{roomId}/confirm")
+                .buildAndExpand(roomId)
+                .toUriString();
+
+        log.debug("Confirming room reservation: {}", url);
+
+        return internalWebClient.post()
+                .uri(url)
+                .bodyValue(RoomAvailabilityRequest.builder()
+                        .startDate(startDate)
+                        .endDate(endDate)
+                        .correlationId(correlationId)
+                        .build())
+                .retrieve()
+                .bodyToMono(Boolean.class)
+                .transform(this::limited)
+                .map(Boolean.TRUE::equals)
+                .defaultIfEmpty(false)
+                .doOnNext(success -> log.info("Room {} confirmation result for dates {} to {}: {}",
+                        roomId, startDate, endDate, success))
+                .doOnError(e -> log.error("Error confirming room {}: {}", roomId, e.getMessage()));
+    }
+
+    /**
+     * Снять блокировки пачкой одним вызовом. В отличие от остальных методов ошибки не скрываются:
+     * компенсацию повторяет диспетчер outbox, пока hotel-service не подтвердит снятие.
+     */
+    public Mono<Void> releaseRooms(List<RoomReleaseRequest> releases) {
+        // /api/hotels/rooms/release-batch
+        String url = internalBaseUrl + "/api/hotels/rooms/release-batch";
+
+        log.debug("Releasing {} rooms: {}", releases.size(), url);
+
+        return internalWebClient.post()
+                .uri(url)
+                .bodyValue(releases)
+                .retrieve()
+                .toBodilessEntity()
+                .transform(this::limited)
+                .doOnNext(response -> log.info("Released {} room reservations", releases.size()))
+                .doOnError(e -> log.warn("Error releasing {} room reservations: {}", releases.size(), e.getMessage()))
+                .then();
+    }
+
+    /**
+     * Вызов под адаптивным лимитом. Сверх лимита - {@link HotelServiceOverloadedException} без обращения к сети;
+     * её не превращают в "пустой" ответ даже запросы на чтение, иначе перегрузка выглядела бы как занятый номер.
+     */
+    private <T> Mono<T> limited(Mono<T> call) {
+        if (limiter == null) {
+            return call;
         }
+        return Mono.defer(() -> {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+            if (permit == null) {
+                log.warn("Hotel service concurrency limit {} reached, call rejected", limiter.getLimit());
+                return Mono.error(new HotelServiceOverloadedException(retryAfter));
+            }
+            return call
+                    .doOnSuccess(result -> permit.onSuccess())
+                    .doOnError(e -> {
+                        if (isOverload(e)) {
+                            permit.onDropped();
+                        } else {
+                            permit.onSuccess(); // 404/409 и т.п. - нормальный ответ, задержка показательна
+                        }
+                    })
+                    .doOnCancel(permit::onIgnore);
+        });
+    }
+
+    /**
+     * Окончательный отказ hotel-service: номер занят или не существует. Повтор шага ничего не изменит.
+     */
+    private boolean isRejected(Throwable e) {
+        return e instanceof WebClientResponseException.Conflict || e instanceof WebClientResponseException.NotFound;
     }
 
-    public void releaseRoom(Long roomId, LocalDate startDate, LocalDate endDate) {
-        try {
-            // Через gateway: /api/hotels/rooms/{roomId}/release
-            String url = UriComponentsBuilder.fromHttpUrl(gatewayUrl + "/api/hotels/rooms/{roomId}/release")
-                    .queryParam("startDate", startDate)
-                    .queryParam("endDate", endDate)
-                    .buildAndExpand(roomId)
-                    .toUriString();
-
-            log.debug("Releasing room via gateway: {}", url);
-
-            webClient.post()
-                    .uri(url)
-                    .retrieve()
-                    .toBodilessEntity()
-                    .block();
-
-            log.info("Room {} released successfully for dates {} to {}", roomId, startDate, endDate);
-
-        } catch (WebClientResponseException.NotFound e) {
-            log.warn("Room {} not found for release", roomId);
-        } catch (Exception e) {
-            log.error("Error releasing room {}: {}", roomId, e.getMessage());
+    private boolean isOverload(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 || status == 502 || status == 503 || status == 504;
         }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package org.service.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "client.hotel-service")
+@Data
+public class HotelServiceClientProperties {
+
+    /**
+     * DIRECT - экземпляры hotel-service из Eureka с клиентской балансировкой,
+     * GATEWAY - запросы на чтение через api-gateway (gateway.url); шаги саги всегда идут напрямую
+     */
+    private Mode mode = Mode.DIRECT;
+    private String serviceId = "hotel-service";
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+    public enum Mode {
+        DIRECT, GATEWAY
+    }
+
+    /**
+     * Адаптивный лимит одновременных вызовов hotel-service
+     */
+    @Data
+    public static class ConcurrencyLimit {
+        private boolean enabled = true;
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+        private double rttTolerance = 1.5;
+        private double backoffRatio = 0.9;
+        /**
+         * Retry-After для клиентов API, чей запрос отклонён лимитом
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+}
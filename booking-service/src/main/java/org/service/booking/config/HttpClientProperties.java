@@ -0,0 +1,28 @@
+package org.service.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Пул соединений и таймауты WebClient для межсервисных вызовов
+ */
+@Configuration
+@ConfigurationProperties(prefix = "client.http")
+@Data
+public class HttpClientProperties {
+    private int maxConnections = 200;
+    // Сколько запросов может ждать свободного соединения, прежде чем получить отказ
+    private int pendingAcquireMaxCount = 1000;
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+    private Duration evictionInterval = Duration.ofSeconds(30);
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration responseTimeout = Duration.ofSeconds(5);
+    // HTTP/2 без TLS (h2c) с откатом на HTTP/1.1
+    private boolean http2 = false;
+    private boolean metricsEnabled = true;
+}
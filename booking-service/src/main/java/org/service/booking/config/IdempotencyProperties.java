@@ -0,0 +1,19 @@
+package org.service.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша идемпотентности по X-Correlation-ID
+ */
+@Configuration
+@ConfigurationProperties(prefix = "booking.idempotency")
+@Data
+public class IdempotencyProperties {
+    // Сколько повтор запроса получает сохранённый результат из памяти
+    private Duration ttl = Duration.ofMinutes(10);
+    private long maxEntries = 10_000;
+}
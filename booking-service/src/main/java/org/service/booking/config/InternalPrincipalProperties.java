@@ -0,0 +1,21 @@
+package org.service.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Ключ заголовка X-Internal-Principal: проверка заголовка от gateway
+ * и подпись собственных вызовов hotel-service от имени сервиса
+ */
+@Configuration
+@ConfigurationProperties(prefix = "internal.principal")
+@Data
+public class InternalPrincipalProperties {
+    private String secret;
+    private String serviceName = "booking-service";
+    // Подпись ставится на каждый вызов, срок нужен только на время перехода
+    private Duration ttl = Duration.ofSeconds(60);
+}
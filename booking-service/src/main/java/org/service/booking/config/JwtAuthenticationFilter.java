@@ -0,0 +1,83 @@
+package org.service.booking.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.service.common.util.InternalPrincipal;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Аутентификация запроса. Сначала проверяется подписанный gateway заголовок X-Internal-Principal
+ * (один HMAC), без него - JWT из Authorization: Bearer. Запрос без валидных данных
+ * проходит дальше неаутентифицированным, доступ решают правила SecurityConfig.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final InternalPrincipalProperties internalPrincipalProperties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String internal = request.getHeader(InternalPrincipal.HEADER);
+        if (internal != null) {
+            InternalPrincipal verified = InternalPrincipal.verify(internal,
+                    internalPrincipalProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+            if (verified != null) {
+                authenticate(new UserPrincipal(verified.getUserId(), verified.getUsername(), authorities(verified.getRole())));
+                filterChain.doFilter(request, response);
+                return;
+            }
+            log.debug("Rejected internal principal header");
+        }
+
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            try {
+                Claims claims = jwtTokenProvider.getClaims(header.substring(BEARER_PREFIX.length()));
+                authenticate(toPrincipal(claims));
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Rejected JWT: {}", e.getMessage());
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(UserPrincipal principal) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private UserPrincipal toPrincipal(Claims claims) {
+        Object userId = claims.get("userId");
+        Object role = claims.get("roles");
+
+        return new UserPrincipal(
+                userId instanceof Number number ? number.longValue() : null,
+                claims.getSubject(),
+                authorities(role != null ? role.toString() : null));
+    }
+
+    private List<SimpleGrantedAuthority> authorities(String role) {
+        return role != null ? List.of(new SimpleGrantedAuthority("ROLE_" + role)) : List.of();
+    }
+}
@@ -1,24 +1,45 @@
 package org.service.booking.config;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.service.booking.entity.User;
+import org.service.common.util.VerifiedTokenCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Выпуск и проверка JWT. Ключ и парсер создаются один раз; проверенные claims кэшируются
+ * по SHA-256 токена до истечения его срока, поэтому подпись токена проверяется один раз за время его жизни.
+ */
 @Component
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
     private final long jwtExpiration = 86400000;
 
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final VerifiedTokenCache<Claims> claimsCache;
+
+    public JwtTokenProvider(@Value("${jwt.secret}") String jwtSecret,
+                            @Value("${jwt.claims-cache.max-size:10000}") long maxSize,
+                            @Value("${jwt.claims-cache.max-ttl:1h}") Duration maxTtl) {
+        this.signingKey = new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8),
+                SignatureAlgorithm.HS256.getJcaName());
+        // Парсер после настройки только читается и безопасен для общего использования
+        this.parser = Jwts.parser().setSigningKey(signingKey);
+        this.claimsCache = new VerifiedTokenCache<>(maxSize, maxTtl, Claims::getExpiration);
+    }
+
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("roles", user.getRole());
@@ -30,26 +51,28 @@ public class JwtTokenProvider {
                 .setSubject(user.getUsername())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(SignatureAlgorithm.HS256, jwtSecret.getBytes(StandardCharsets.UTF_8))
+                .signWith(SignatureAlgorithm.HS256, signingKey)
                 .compact();
     }
 
     public String getUsernameFromToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(jwtSecret.getBytes(StandardCharsets.UTF_8))
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return getClaims(token).getSubject();
+    }
+
+    /**
+     * Проверить подпись и срок действия токена и вернуть его claims.
+     * Невалидные токены не кэшируются и при каждом вызове приводят к исключению.
+     */
+    public Claims getClaims(String token) {
+        return claimsCache.get(token, t -> parser.parseClaimsJws(t).getBody());
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .setSigningKey(jwtSecret.getBytes(StandardCharsets.UTF_8))
-                    .parseClaimsJws(token);
+            getClaims(token);
             return true;
         } catch (Exception e) {
             return false;
         }
     }
-}
\ No newline at end of file
+}
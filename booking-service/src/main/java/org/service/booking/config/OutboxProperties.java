@@ -0,0 +1,30 @@
+package org.service.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Настройки диспетчера outbox саги бронирования
+ */
+@Configuration
+@ConfigurationProperties(prefix = "booking.outbox")
+@Data
+public class OutboxProperties {
+    private int batchSize = 50;
+    // Сколько шагов пачки выполняется параллельно
+    private int concurrency = 16;
+    private Duration pollInterval = Duration.ofSeconds(1);
+    private Duration lease = Duration.ofSeconds(60);
+    private int maxAttempts = 5;
+    // Снятие блокировки повторяется дольше остальных шагов: иначе номер останется занятым
+    private int releaseMaxAttempts = 20;
+    // Сколько снятий блокировок отправляется в hotel-service одним запросом
+    private int releaseBatchSize = 50;
+    private Duration initialBackoff = Duration.ofMillis(200);
+    private Duration maxBackoff = Duration.ofSeconds(30);
+    // Сколько запрос на создание ждёт исхода саги, прежде чем ответить 202 с PENDING
+    private Duration awaitTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,23 @@
+package org.service.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Настройки хэширования паролей: отдельный ограниченный пул и стоимость BCrypt
+ */
+@Configuration
+@ConfigurationProperties(prefix = "booking.password-hashing")
+@Data
+public class PasswordHashingProperties {
+    // BCrypt нагружает процессор, поэтому пулу достаётся не больше половины ядер
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // Сверх очереди запросы сразу получают 429, а не ждут
+    private int queueCapacity = 64;
+    // log2 числа раундов BCrypt; пароли с меньшей стоимостью перехэшируются при входе
+    private int strength = 10;
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,32 @@
+package org.service.booking.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Планировщик для блокирующих шагов саги (JPA/JDBC).
+ * В режиме виртуальных потоков каждый шаг получает свой виртуальный поток, и параллелизм
+ * ограничивает только пул соединений. Иначе число платформенных потоков ограничено размером пула,
+ * чтобы задачи ждали в очереди, а не соединение внутри Hikari.
+ */
+@Configuration
+public class SchedulerConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${booking.jdbc.threads:${spring.datasource.hikari.maximum-pool-size:10}}") int threads,
+            @Value("${booking.jdbc.queue-capacity:10000}") int queueCapacity) {
+        if (virtualThreads) {
+            return Schedulers.fromExecutorService(
+                    Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("booking-jdbc-", 0).factory()),
+                    "booking-jdbc");
+        }
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "booking-jdbc");
+    }
+}
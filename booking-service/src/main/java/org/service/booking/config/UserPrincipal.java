@@ -0,0 +1,22 @@
+package org.service.booking.config;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Пользователь из проверенного JWT. Кроме имени несёт userId из claims,
+ * чтобы сервисам не приходилось искать пользователя по имени.
+ */
+@Getter
+public class UserPrincipal extends User {
+
+    private final Long userId;
+
+    public UserPrincipal(Long userId, String username, Collection<? extends GrantedAuthority> authorities) {
+        super(username, "", authorities);
+        this.userId = userId;
+    }
+}
@@ -8,20 +8,27 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.service.booking.dto.BookingDTO;
+import org.service.booking.dto.BookingPage;
 import org.service.booking.dto.CreateBookingRequest;
+import org.service.booking.dto.GroupBookingRequest;
 import org.service.booking.entity.Booking;
+import org.service.booking.exception.HotelServiceOverloadedException;
 import org.service.booking.mapper.BookingMapper;
+import org.service.booking.service.BookingConflictIndex;
 import org.service.booking.service.BookingService;
 import org.service.booking.service.UserService;
 import org.service.booking.util.CorrelationContext;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -34,20 +41,26 @@ import java.util.stream.Collectors;
 @Tag(name = "Bookings", description = "API для управления бронированием")
 public class BookingController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final BookingService bookingService;
     private final BookingMapper bookingMapper;
     private final UserService userService;
+    private final BookingConflictIndex conflictIndex;
 
     @PostMapping
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Создать бронирование", description = "Создание бронирования с выбором или автоподбором комнаты")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Бронирование успешно создано"),
+            @ApiResponse(responseCode = "202", description = "Бронирование принято, подтверждение ещё выполняется"),
             @ApiResponse(responseCode = "400", description = "Неверные параметры запроса"),
             @ApiResponse(responseCode = "404", description = "Комната или пользователь не найден"),
-            @ApiResponse(responseCode = "409", description = "Комната недоступна для бронирования")
+            @ApiResponse(responseCode = "409", description = "Комната недоступна для бронирования"),
+            @ApiResponse(responseCode = "503", description = "hotel-service перегружен, повторите после Retry-After")
     })
-    public ResponseEntity<BookingDTO> createBooking(
+    public Mono<ResponseEntity<BookingDTO>> createBooking(
             @Valid @RequestBody CreateBookingRequest request,
             @AuthenticationPrincipal UserDetails userDetails) {
 
@@ -55,65 +68,142 @@ public class BookingController {
         log.info("Creating booking for user: {}, autoSelect: {}, roomId: {}",
                 userDetails.getUsername(), request.getIsAutoSelect(), request.getRoomId());
 
-        try {
-            Booking booking;
+        Mono<Booking> booking;
 
-            if (request.getIsAutoSelect()) {
-                // Автоподбор комнаты
-                booking = bookingService.createBookingWithAutoSelect(
-                        userDetails.getUsername(),
-                        request.getStartDate(),
-                        request.getEndDate()
-                );
-            } else {
-                // Бронирование конкретной комнаты
-                if (request.getRoomId() == null) {
-                    return ResponseEntity.badRequest().build();
-                }
-
-                booking = bookingService.createBookingWithRoomSelection(
-                        userDetails.getUsername(),
-                        request.getRoomId(),
-                        request.getStartDate(),
-                        request.getEndDate()
-                );
+        if (request.getIsAutoSelect()) {
+            // Автоподбор комнаты
+            booking = bookingService.createBookingWithAutoSelect(
+                    userDetails.getUsername(),
+                    request.getStartDate(),
+                    request.getEndDate()
+            );
+        } else {
+            // Бронирование конкретной комнаты
+            if (request.getRoomId() == null) {
+                return Mono.just(ResponseEntity.badRequest().build());
             }
 
-            log.info("Booking created successfully: {}", booking.getId());
-            return ResponseEntity.status(HttpStatus.CREATED).body(bookingMapper.toDTO(booking));
-
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid booking request: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
-        } catch (org.service.booking.exception.RoomNotAvailableException e) {
-            log.error("Room not available: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.CONFLICT).build();
-        } catch (Exception e) {
-            log.error("Failed to create booking: {}", e.getMessage());
-            return ResponseEntity.internalServerError().build();
+            booking = bookingService.createBookingWithRoomSelection(
+                    userDetails.getUsername(),
+                    request.getRoomId(),
+                    request.getStartDate(),
+                    request.getEndDate()
+            );
         }
+
+        // Поток контейнера освобождается сразу, ответ отправляется по завершении саги
+        return booking
+                .map(created -> {
+                    // PENDING - сага ещё выполняется, итог виден в GET /api/bookings/{id}
+                    HttpStatus status = created.getStatus() == Booking.BookingStatus.PENDING
+                            ? HttpStatus.ACCEPTED
+                            : HttpStatus.CREATED;
+                    log.info("Booking {} created, status: {}", created.getId(), created.getStatus());
+                    return ResponseEntity.status(status).body(bookingMapper.toDTO(created));
+                })
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.error("Invalid booking request: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest().<BookingDTO>build());
+                })
+                .onErrorResume(org.service.booking.exception.RoomNotAvailableException.class, e -> {
+                    log.error("Room not available: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).<BookingDTO>build());
+                })
+                .onErrorResume(HotelServiceOverloadedException.class, e -> Mono.just(serviceUnavailable(e)))
+                .onErrorResume(e -> {
+                    log.error("Failed to create booking: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.internalServerError().<BookingDTO>build());
+                });
+    }
+
+    @PostMapping("/group")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Создать групповое бронирование",
+            description = "Бронирование нескольких номеров на одни даты: номера блокируются все или ни одного")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Все бронирования группы обработаны"),
+            @ApiResponse(responseCode = "202", description = "Номера заблокированы, подтверждение ещё выполняется"),
+            @ApiResponse(responseCode = "400", description = "Неверные параметры запроса"),
+            @ApiResponse(responseCode = "409", description = "Номера группы недоступны для бронирования"),
+            @ApiResponse(responseCode = "503", description = "hotel-service перегружен, повторите после Retry-After")
+    })
+    public Mono<ResponseEntity<List<BookingDTO>>> createGroupBooking(
+            @RequestBody GroupBookingRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        CorrelationContext.initCorrelationIdIfAbsent();
+        log.info("Creating group booking for user: {}, roomIds: {}, roomCount: {}",
+                userDetails.getUsername(), request.getRoomIds(), request.getRoomCount());
+
+        return bookingService.createGroupBooking(
+                        userDetails.getUsername(),
+                        request.getRoomIds(),
+                        request.getRoomCount(),
+                        request.getStartDate(),
+                        request.getEndDate())
+                .map(bookings -> {
+                    HttpStatus status = bookings.stream().anyMatch(b -> b.getStatus() == Booking.BookingStatus.PENDING)
+                            ? HttpStatus.ACCEPTED
+                            : HttpStatus.CREATED;
+                    log.info("Group booking of {} rooms created, status: {}", bookings.size(), status);
+                    return ResponseEntity.status(status).body(bookings.stream()
+                            .map(bookingMapper::toDTO)
+                            .collect(Collectors.toList()));
+                })
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.error("Invalid group booking request: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest().<List<BookingDTO>>build());
+                })
+                .onErrorResume(org.service.booking.exception.RoomNotAvailableException.class, e -> {
+                    log.error("Rooms not available: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).<List<BookingDTO>>build());
+                })
+                .onErrorResume(HotelServiceOverloadedException.class, e -> Mono.just(serviceUnavailable(e)))
+                .onErrorResume(e -> {
+                    log.error("Failed to create group booking: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.internalServerError().<List<BookingDTO>>build());
+                });
     }
 
     @GetMapping
     @PreAuthorize("hasRole('USER')")
-    @Operation(summary = "Получить историю бронирований", description = "Получение истории всех бронирований текущего пользователя")
+    @Operation(summary = "Получить историю бронирований",
+            description = "Страница истории бронирований текущего пользователя, от новых к старым. "
+                    + "Курсор следующей страницы - в заголовке X-Next-Cursor, общее количество (includeTotal=true) - в X-Total-Count")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "История бронирований получена успешно"),
+            @ApiResponse(responseCode = "400", description = "Неверный курсор"),
             @ApiResponse(responseCode = "404", description = "Пользователь не найден")
     })
-    public ResponseEntity<List<BookingDTO>> getUserBookings(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<List<BookingDTO>> getUserBookings(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal,
+            @AuthenticationPrincipal UserDetails userDetails) {
         CorrelationContext.initCorrelationIdIfAbsent();
         log.info("Getting booking history for user: {}", userDetails.getUsername());
 
         try {
-            List<BookingDTO> bookings = bookingService.getUserBookings(userDetails.getUsername())
+            BookingPage page = bookingService.getUserBookings(userDetails.getUsername(), cursor, limit, includeTotal);
+            List<BookingDTO> bookings = page.getBookings()
                     .stream()
                     .map(bookingMapper::toDTO)
                     .collect(Collectors.toList());
 
             log.info("Found {} bookings for user: {}", bookings.size(), userDetails.getUsername());
-            return ResponseEntity.ok(bookings);
 
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            if (page.getTotalCount() != null) {
+                response.header(TOTAL_COUNT_HEADER, String.valueOf(page.getTotalCount()));
+            }
+            return response.body(bookings);
+
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid booking history request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to get user bookings: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
@@ -160,30 +250,71 @@ public class BookingController {
             @ApiResponse(responseCode = "403", description = "Нет доступа к бронированию"),
             @ApiResponse(responseCode = "409", description = "Невозможно отменить бронирование")
     })
-    public ResponseEntity<Void> cancelBooking(
+    public Mono<ResponseEntity<Void>> cancelBooking(
             @PathVariable("id") Long id,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         CorrelationContext.initCorrelationIdIfAbsent();
         log.info("Cancelling booking: {} for user: {}", id, userDetails.getUsername());
 
-        try {
-            bookingService.cancelBooking(id, userDetails.getUsername());
-            log.info("Booking cancelled successfully: {}", id);
-            return ResponseEntity.noContent().build();
+        return bookingService.cancelBooking(id, userDetails.getUsername())
+                .then(Mono.fromCallable(() -> {
+                    log.info("Booking cancelled successfully: {}", id);
+                    return ResponseEntity.noContent().<Void>build();
+                }))
+                .onErrorResume(org.service.booking.exception.BookingNotFoundException.class, e -> {
+                    log.error("Booking not found: {}", id);
+                    return Mono.just(ResponseEntity.notFound().<Void>build());
+                })
+                .onErrorResume(SecurityException.class, e -> {
+                    log.error("Access denied to cancel booking: {} for user: {}", id, userDetails.getUsername());
+                    return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).<Void>build());
+                })
+                .onErrorResume(IllegalStateException.class, e -> {
+                    log.error("Cannot cancel booking: {}, reason: {}", id, e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).<Void>build());
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to cancel booking: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.internalServerError().<Void>build());
+                });
+    }
 
-        } catch (org.service.booking.exception.BookingNotFoundException e) {
-            log.error("Booking not found: {}", id);
-            return ResponseEntity.notFound().build();
-        } catch (SecurityException e) {
-            log.error("Access denied to cancel booking: {} for user: {}", id, userDetails.getUsername());
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        } catch (IllegalStateException e) {
-            log.error("Cannot cancel booking: {}, reason: {}", id, e.getMessage());
-            return ResponseEntity.status(HttpStatus.CONFLICT).build();
-        } catch (Exception e) {
-            log.error("Failed to cancel booking: {}", e.getMessage());
-            return ResponseEntity.internalServerError().build();
+    /**
+     * Есть ли активные бронирования номера, пересекающиеся с датами
+     * INTERNAL - вызывается hotel-service, отвечает из индекса в памяти без запроса к БД
+     */
+    @GetMapping("/rooms/{roomId}/conflicts")
+    @Operation(summary = "Проверить конфликты бронирований номера", description = "Внутренний вызов hotel-service")
+    public ResponseEntity<Boolean> hasConflictingBookings(
+            @PathVariable("roomId") Long roomId,
+            @RequestParam("checkIn") LocalDate checkIn,
+            @RequestParam("checkOut") LocalDate checkOut) {
+        try {
+            return ResponseEntity.ok(conflictIndex.hasConflicts(roomId, checkIn, checkOut));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid conflict check for room {}: {}", roomId, e.getMessage());
+            return ResponseEntity.badRequest().build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Количество активных (PENDING, CONFIRMED) бронирований номера
+     * INTERNAL - вызывается hotel-service
+     */
+    @GetMapping("/rooms/{roomId}/active-count")
+    @Operation(summary = "Количество активных бронирований номера", description = "Внутренний вызов hotel-service")
+    public ResponseEntity<Integer> getActiveBookingsCount(@PathVariable("roomId") Long roomId) {
+        return ResponseEntity.ok(conflictIndex.getActiveCount(roomId));
+    }
+
+    /**
+     * Вызов hotel-service отклонён адаптивным лимитом: клиент повторит запрос позже
+     */
+    private <T> ResponseEntity<T> serviceUnavailable(HotelServiceOverloadedException e) {
+        log.warn("Booking rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .build();
+    }
+}
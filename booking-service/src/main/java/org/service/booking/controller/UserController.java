@@ -5,9 +5,12 @@ import org.service.booking.dto.AuthRequest;
 import org.service.booking.dto.AuthResponse;
 import org.service.booking.dto.UserDTO;
 import org.service.booking.entity.User;
+import org.service.booking.exception.PasswordHashingRejectedException;
 import org.service.booking.service.UserService;
 import org.service.booking.mapper.UserMapper;
 import org.service.booking.util.CorrelationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -25,15 +28,23 @@ public class UserController {
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@RequestBody AuthRequest request) {
         CorrelationContext.initCorrelationIdIfAbsent();
-        AuthResponse response = userService.register(request);
-        return ResponseEntity.ok(response);
+        try {
+            AuthResponse response = userService.register(request);
+            return ResponseEntity.ok(response);
+        } catch (PasswordHashingRejectedException e) {
+            return tooManyRequests(e);
+        }
     }
 
     @PostMapping("/auth")
     public ResponseEntity<AuthResponse> authenticate(@RequestBody AuthRequest request) {
         CorrelationContext.initCorrelationIdIfAbsent();
-        AuthResponse response = userService.authenticate(request);
-        return ResponseEntity.ok(response);
+        try {
+            AuthResponse response = userService.authenticate(request);
+            return ResponseEntity.ok(response);
+        } catch (PasswordHashingRejectedException e) {
+            return tooManyRequests(e);
+        }
     }
 
     @GetMapping
@@ -68,4 +79,13 @@ public class UserController {
         userService.deleteUser(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Пул хэширования паролей перегружен: клиент повторит запрос позже
+     */
+    private ResponseEntity<AuthResponse> tooManyRequests(PasswordHashingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .build();
+    }
 }
\ No newline at end of file
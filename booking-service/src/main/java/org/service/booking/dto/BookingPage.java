@@ -0,0 +1,23 @@
+package org.service.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.service.booking.entity.Booking;
+
+import java.util.List;
+
+/**
+ * Страница истории бронирований. nextCursor == null - страница последняя,
+ * totalCount заполняется только по запросу.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPage {
+    private List<Booking> bookings;
+    private String nextCursor;
+    private Long totalCount;
+}
@@ -0,0 +1,23 @@
+package org.service.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Групповое бронирование на одни даты: конкретные номера и/или количество номеров для автоподбора
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBookingRequest {
+    private List<Long> roomIds;
+    private Integer roomCount;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
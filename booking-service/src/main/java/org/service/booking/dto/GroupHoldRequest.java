@@ -0,0 +1,28 @@
+package org.service.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupHoldRequest {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<Item> rooms;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long roomId; // null - автоподбор
+        private String correlationId;
+    }
+}
@@ -0,0 +1,19 @@
+package org.service.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomReleaseRequest {
+    private Long roomId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String correlationId;
+}
@@ -10,7 +10,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", uniqueConstraints = {
+        // Повтор запроса с тем же X-Correlation-ID не создаст второе бронирование
+        @UniqueConstraint(name = "uk_bookings_correlation_id", columnNames = "correlation_id")
+}, indexes = {
+        // Порядок колонок совпадает с сортировкой keyset-пагинации истории
+        @Index(name = "idx_bookings_user_created", columnList = "user_id, created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -18,15 +24,17 @@ import java.time.LocalDateTime;
 public class Booking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Групповое бронирование сохраняется одним batch, с IDENTITY Hibernate вставлял бы по строке
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @Column(name = "room_id", nullable = false)
-    private Long roomId;
+    @Column(name = "room_id")
+    private Long roomId; // при автоподборе заполняется сагой после блокировки номера
 
     @Column(name = "start_date", nullable = false)
     private LocalDate startDate;
@@ -47,6 +55,12 @@ public class Booking {
     @Column(name = "correlation_id")
     private String correlationId; // для идемпотентности
 
+    @Column(name = "cancel_correlation_id")
+    private String cancelCorrelationId; // X-Correlation-ID запроса отмены
+
+    @Version
+    private Long version; // отмена по устаревшей копии не затрёт шаг саги
+
     public enum BookingStatus {
         PENDING, CONFIRMED, CANCELLED
     }
@@ -0,0 +1,64 @@
+package org.service.booking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись outbox для шага саги бронирования.
+ * Сохраняется в одной транзакции с бронированием в статусе PENDING; удалённые вызовы
+ * (блокировка, подтверждение, компенсация) выполняет фоновый диспетчер.
+ */
+@Entity
+@Table(name = "booking_outbox", indexes = {
+        @Index(name = "idx_booking_outbox_status_next", columnList = "status, next_attempt_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_outbox_seq")
+    @SequenceGenerator(name = "booking_outbox_seq", sequenceName = "booking_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private SagaStep step = SagaStep.HOLD;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public enum SagaStep {
+        HOLD, CONFIRM, RELEASE
+    }
+
+    public enum OutboxStatus {
+        PENDING, PROCESSING, DONE, FAILED
+    }
+}
@@ -0,0 +1,21 @@
+package org.service.booking.exception;
+
+import java.time.Duration;
+
+/**
+ * Вызов hotel-service отклонён адаптивным лимитом без обращения к сети. Ошибка временная:
+ * шаг саги повторяется диспетчером, клиент API получает 503 с Retry-After.
+ */
+public class HotelServiceOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public HotelServiceOverloadedException(Duration retryAfter) {
+        super("Hotel service concurrency limit reached");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -1,19 +1,66 @@
 package org.service.booking.repository;
 
 import org.service.booking.entity.Booking;
-import org.service.booking.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    List<Booking> findByUserOrderByCreatedAtDesc(User user);
+    /**
+     * Первая страница истории по индексу (user_id, created_at, id)
+     */
+    @Query("SELECT b FROM Booking b WHERE b.user.id = :userId ORDER BY b.createdAt DESC, b.id DESC")
+    List<Booking> findPageByUserId(@Param("userId") Long userId, Pageable pageable);
 
-    Optional<Booking> findByIdAndUser(Long id, User user);
+    /**
+     * Следующая страница: записи строго после позиции курсора, без OFFSET
+     */
+    @Query("SELECT b FROM Booking b WHERE b.user.id = :userId " +
+            "AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id)) " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    List<Booking> findPageByUserIdAfter(@Param("userId") Long userId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
 
-    List<Booking> findByRoomIdAndStatusIn(Long roomId, List<Booking.BookingStatus> statuses);
+    long countByUserId(Long userId);
+
+    Optional<Booking> findByIdAndUserId(Long id, Long userId);
+
+    Optional<Booking> findByCorrelationId(String correlationId);
+
+    List<Booking> findByCorrelationIdIn(Collection<String> correlationIds);
+
+    List<Booking> findByRoomIdIsNotNullAndStatusIn(List<Booking.BookingStatus> statuses);
+
+    @Query("SELECT b.status FROM Booking b WHERE b.id = :id")
+    Optional<Booking.BookingStatus> findStatusById(@Param("id") Long id);
+
+    /**
+     * Номер, заблокированный сагой, записывается при любом статусе: если бронирование уже отменили,
+     * по нему снимется блокировка
+     */
+    @Modifying
+    @Query("UPDATE Booking b SET b.roomId = :roomId, b.updatedAt = :now, b.version = b.version + 1 " +
+            "WHERE b.id = :id")
+    int assignRoom(@Param("id") Long id, @Param("roomId") Long roomId, @Param("now") LocalDateTime now);
+
+    /**
+     * Переход саги из PENDING; вернёт 0, если бронирование уже отменили
+     */
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :status, b.updatedAt = :now, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.status = 'PENDING'")
+    int completePending(@Param("id") Long id, @Param("status") Booking.BookingStatus status,
+                        @Param("now") LocalDateTime now);
 }
\ No newline at end of file
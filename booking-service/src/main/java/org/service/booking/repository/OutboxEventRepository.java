@@ -0,0 +1,38 @@
+package org.service.booking.repository;
+
+import org.service.booking.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            OutboxEvent.OutboxStatus status, LocalDateTime now, Pageable pageable);
+
+    /**
+     * Захват записи на время аренды; вернёт 0, если запись уже захватил другой узел
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = 'PROCESSING', e.nextAttemptAt = :leaseUntil, e.updatedAt = :now " +
+            "WHERE e.id = :id AND e.status = 'PENDING'")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Записи, аренда которых истекла (узел остановился посреди шага), возвращаются в очередь
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = 'PENDING' WHERE e.status = 'PROCESSING' AND e.nextAttemptAt < :now")
+    int releaseExpiredLeases(@Param("now") LocalDateTime now);
+
+    long countByStatus(OutboxEvent.OutboxStatus status);
+
+    long countByStatusInAndStep(List<OutboxEvent.OutboxStatus> statuses, OutboxEvent.SagaStep step);
+}
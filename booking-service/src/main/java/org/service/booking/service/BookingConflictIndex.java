@@ -0,0 +1,117 @@
+package org.service.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.service.booking.entity.Booking;
+import org.service.booking.repository.BookingRepository;
+import org.service.booking.util.IntervalTree;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Индекс активных (PENDING, CONFIRMED) бронирований по номерам в памяти:
+ * для каждого номера - дерево интервалов ночей [startDate, endDate).
+ * Строится при старте и обновляется после каждого изменения бронирования,
+ * поэтому проверка конфликтов не обращается к БД.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingConflictIndex {
+
+    private static final List<Booking.BookingStatus> ACTIVE_STATUSES =
+            List.of(Booking.BookingStatus.PENDING, Booking.BookingStatus.CONFIRMED);
+
+    private final BookingRepository bookingRepository;
+
+    private final Map<Long, RoomIntervals> rooms = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        List<Booking> active = bookingRepository.findByRoomIdIsNotNullAndStatusIn(ACTIVE_STATUSES);
+
+        rooms.clear();
+        active.forEach(this::update);
+        log.info("Booking conflict index built: {} active bookings in {} rooms", active.size(), rooms.size());
+    }
+
+    /**
+     * Учесть текущее состояние бронирования: активное добавляется (или обновляется), отменённое удаляется
+     */
+    public void update(Booking booking) {
+        if (booking.getRoomId() == null || booking.getId() == null) {
+            return; // Номер ещё не выбран сагой
+        }
+
+        long start = booking.getStartDate().toEpochDay();
+        long id = booking.getId();
+
+        if (ACTIVE_STATUSES.contains(booking.getStatus())) {
+            long end = booking.getEndDate().toEpochDay();
+            room(booking.getRoomId()).write(tree -> {
+                tree.add(start, end, id);
+                return null;
+            });
+        } else {
+            RoomIntervals intervals = rooms.get(booking.getRoomId());
+            if (intervals != null) {
+                intervals.write(tree -> tree.remove(start, id));
+            }
+        }
+    }
+
+    public boolean hasConflicts(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Check-out date must be after check-in date");
+        }
+
+        RoomIntervals intervals = rooms.get(roomId);
+        return intervals != null
+                && intervals.read(tree -> tree.overlaps(checkIn.toEpochDay(), checkOut.toEpochDay()));
+    }
+
+    public int getActiveCount(Long roomId) {
+        RoomIntervals intervals = rooms.get(roomId);
+        return intervals == null ? 0 : intervals.read(IntervalTree::size);
+    }
+
+    private RoomIntervals room(Long roomId) {
+        return rooms.computeIfAbsent(roomId, id -> new RoomIntervals());
+    }
+
+    /**
+     * Дерево номера под собственной блокировкой чтения/записи: проверки разных номеров не мешают друг другу
+     */
+    private static final class RoomIntervals {
+        private final IntervalTree tree = new IntervalTree();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private <T> T read(Function<IntervalTree, T> action) {
+            lock.readLock().lock();
+            try {
+                return action.apply(tree);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private <T> T write(Function<IntervalTree, T> action) {
+            lock.writeLock().lock();
+            try {
+                return action.apply(tree);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
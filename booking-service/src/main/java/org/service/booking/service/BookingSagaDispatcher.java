@@ -0,0 +1,443 @@
+package org.service.booking.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.service.booking.client.HotelServiceClient;
+import org.service.booking.config.OutboxProperties;
+import org.service.booking.dto.RoomDTO;
+import org.service.booking.dto.RoomReleaseRequest;
+import org.service.booking.entity.Booking;
+import org.service.booking.entity.OutboxEvent;
+import org.service.booking.repository.BookingRepository;
+import org.service.booking.repository.OutboxEventRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Фоновый диспетчер саги бронирования по таблице booking_outbox.
+ * Забирает пачку готовых записей, выполняет удалённые шаги (блокировка, подтверждение, компенсация)
+ * без открытой транзакции и фиксирует результат короткими транзакциями. Неудачные шаги
+ * повторяются с экспоненциальной задержкой. Снятия блокировок (компенсации) собираются
+ * в пачки и отправляются в hotel-service одним запросом.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingSagaDispatcher implements MeterBinder {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final BookingRepository bookingRepository;
+    private final HotelServiceClient hotelServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final Scheduler jdbcScheduler;
+    private final OutboxProperties outboxProperties;
+    private final BookingConflictIndex conflictIndex;
+
+    private final Semaphore signal = new Semaphore(0);
+    private final Map<String, Sinks.One<Booking>> waiters = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "booking-outbox");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Разбудить диспетчер после записи в outbox, не дожидаясь очередного опроса
+     */
+    public void wakeUp() {
+        signal.release();
+    }
+
+    /**
+     * Исход саги (CONFIRMED или CANCELLED) по correlationId.
+     * Регистрируется до сохранения бронирования, чтобы не пропустить быстрый результат.
+     */
+    public Mono<Booking> awaitOutcome(String correlationId) {
+        Sinks.One<Booking> sink = Sinks.one();
+        waiters.put(correlationId, sink);
+        return sink.asMono();
+    }
+
+    public void forget(String correlationId) {
+        waiters.remove(correlationId);
+    }
+
+    /**
+     * Глубина очереди по шагам саги; backlog RELEASE - номера, которые ещё не освобождены
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        List<OutboxEvent.OutboxStatus> queued = List.of(OutboxEvent.OutboxStatus.PENDING, OutboxEvent.OutboxStatus.PROCESSING);
+
+        for (OutboxEvent.SagaStep step : OutboxEvent.SagaStep.values()) {
+            Gauge.builder("booking.outbox.backlog", outboxEventRepository,
+                            repository -> repository.countByStatusInAndStep(queued, step))
+                    .description("Outbox saga steps waiting to be processed")
+                    .tag("step", step.name())
+                    .register(registry);
+        }
+
+        Gauge.builder("booking.outbox.failed", outboxEventRepository,
+                        repository -> repository.countByStatus(OutboxEvent.OutboxStatus.FAILED))
+                .description("Outbox saga steps that failed permanently")
+                .register(registry);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                signal.tryAcquire(outboxProperties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                signal.drainPermits();
+
+                // Пока пачки полные, backlog разбирается без пауз
+                while (running && dispatchBatch() >= outboxProperties.getBatchSize()) {
+                    log.debug("Outbox batch is full, continuing");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Outbox dispatch failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(outboxProperties.getLease());
+
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> {
+            outboxEventRepository.releaseExpiredLeases(now);
+
+            List<OutboxEvent> due = outboxEventRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    OutboxEvent.OutboxStatus.PENDING, now, PageRequest.of(0, outboxProperties.getBatchSize()));
+
+            List<OutboxEvent> owned = new ArrayList<>(due.size());
+            for (OutboxEvent event : due) {
+                if (outboxEventRepository.claim(event.getId(), now, leaseUntil) == 1) {
+                    // Синхронизируем сущность с UPDATE, иначе при сохранении затрём аренду
+                    event.setStatus(OutboxEvent.OutboxStatus.PROCESSING);
+                    event.setNextAttemptAt(leaseUntil);
+                    event.setUpdatedAt(now);
+                    owned.add(event);
+                }
+            }
+            return owned;
+        });
+
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> bookingIds = claimed.stream().map(OutboxEvent::getBookingId).distinct().toList();
+        Map<Long, Booking> bookings = transactionTemplate.execute(status -> bookingRepository.findAllById(bookingIds)
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity())));
+
+        Map<Boolean, List<OutboxEvent>> releases = claimed.stream()
+                .collect(Collectors.partitioningBy(event -> event.getStep() == OutboxEvent.SagaStep.RELEASE
+                        && bookings.containsKey(event.getBookingId())));
+
+        Flux<Void> steps = Flux.fromIterable(releases.get(false))
+                .flatMap(event -> process(event, bookings.get(event.getBookingId()))
+                        .onErrorResume(e -> {
+                            log.error("Outbox event {} failed: {}", event.getId(), e.getMessage());
+                            return retryOrGiveUp(event, bookings.get(event.getBookingId()), e.getMessage());
+                        }), outboxProperties.getConcurrency());
+
+        Flux<Void> compensations = Flux.fromIterable(releases.get(true))
+                .buffer(outboxProperties.getReleaseBatchSize())
+                .flatMap(batch -> release(batch, bookings), outboxProperties.getConcurrency());
+
+        Flux.merge(steps, compensations)
+                .then()
+                .block();
+
+        return claimed.size();
+    }
+
+    private Mono<Void> process(OutboxEvent event, Booking booking) {
+        if (booking == null) {
+            log.warn("Booking {} for outbox event {} not found", event.getBookingId(), event.getId());
+            event.setStatus(OutboxEvent.OutboxStatus.FAILED);
+            event.setLastError("Booking not found");
+            return inTransaction(() -> saveEvent(event)).then();
+        }
+
+        // Бронирование отменили, пока шаг ждал очереди; снятие блокировки записала сама отмена
+        if (booking.getStatus() == Booking.BookingStatus.CANCELLED && event.getStep() != OutboxEvent.SagaStep.RELEASE) {
+            log.info("Booking {} is cancelled, skipping step {}", booking.getId(), event.getStep());
+            event.setStatus(OutboxEvent.OutboxStatus.DONE);
+            return inTransaction(() -> saveEvent(event)).then();
+        }
+
+        return switch (event.getStep()) {
+            // onHeld завершается пустым Mono, поэтому отказ проверяется до него, а не через switchIfEmpty
+            case HOLD -> hold(booking)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(roomId -> roomId.isPresent()
+                            ? onHeld(event, booking, roomId.get())
+                            : giveUp(event, booking, "Room is not available"));
+            case CONFIRM -> confirm(event, booking);
+            case RELEASE -> release(List.of(event), Map.of(booking.getId(), booking));
+        };
+    }
+
+    /**
+     * Компенсация пачкой: один запрос в hotel-service на все снятия. При ошибке каждая запись
+     * уходит на повтор со своей задержкой. Снятие идемпотентно: повтор уже снятой блокировки ничего не меняет.
+     */
+    private Mono<Void> release(List<OutboxEvent> events, Map<Long, Booking> bookings) {
+        List<RoomReleaseRequest> requests = events.stream()
+                .map(event -> bookings.get(event.getBookingId()))
+                // Номер так и не был выбран - снимать нечего
+                .filter(booking -> booking.getRoomId() != null)
+                .map(booking -> RoomReleaseRequest.builder()
+                        .roomId(booking.getRoomId())
+                        .startDate(booking.getStartDate())
+                        .endDate(booking.getEndDate())
+                        .correlationId(booking.getCorrelationId())
+                        .build())
+                .toList();
+
+        Mono<Void> released = requests.isEmpty() ? Mono.empty() : hotelServiceClient.releaseRooms(requests);
+
+        return released
+                .then(Mono.defer(() -> {
+                    events.forEach(event -> {
+                        event.setStatus(OutboxEvent.OutboxStatus.DONE);
+                        event.setUpdatedAt(LocalDateTime.now());
+                    });
+                    return inTransaction(() -> outboxEventRepository.saveAll(events)).then();
+                }))
+                .onErrorResume(e -> Flux.fromIterable(events)
+                        .concatMap(event -> retryOrGiveUp(event, bookings.get(event.getBookingId()), e.getMessage()))
+                        .then());
+    }
+
+    /**
+     * Блокировка идемпотентна по correlationId, поэтому повтор шага после сбоя не займёт второй номер.
+     * Пустой Mono - номер занят или свободных нет, шаг не повторяется; ошибки вызова
+     * (таймаут, 5xx, отказ лимита) уходят в {@link #retryOrGiveUp}.
+     */
+    private Mono<Long> hold(Booking booking) {
+        if (booking.getRoomId() == null) {
+            return hotelServiceClient.allocateRoom(booking.getStartDate(), booking.getEndDate(), booking.getCorrelationId())
+                    .map(RoomDTO::getId);
+        }
+
+        return hotelServiceClient.lockRoom(booking.getRoomId(), booking.getStartDate(), booking.getEndDate(),
+                        booking.getCorrelationId())
+                .filter(Boolean::booleanValue)
+                .map(locked -> booking.getRoomId());
+    }
+
+    /**
+     * Номер записывается отдельным UPDATE, а не сохранением загруженной копии: отмена,
+     * пришедшая во время блокировки, не откатится обратно в PENDING.
+     */
+    private Mono<Void> onHeld(OutboxEvent event, Booking booking, Long roomId) {
+        booking.setRoomId(roomId);
+        booking.setUpdatedAt(LocalDateTime.now());
+        event.setStep(OutboxEvent.SagaStep.CONFIRM);
+        event.setAttempts(0);
+
+        return inTransaction(() -> {
+                    bookingRepository.assignRoom(booking.getId(), roomId, booking.getUpdatedAt());
+                    return saveEvent(event);
+                })
+                .doOnNext(saved -> conflictIndex.update(booking))
+                .then(Mono.defer(() -> confirm(event, booking)));
+    }
+
+    /**
+     * Статус перечитывается перед подтверждением: копия из пачки могла устареть.
+     * Отменённое бронирование не подтверждается, а его блокировка снимается.
+     */
+    private Mono<Void> confirm(OutboxEvent event, Booking booking) {
+        return inTransaction(() -> bookingRepository.findStatusById(booking.getId()))
+                .flatMap(status -> status.orElse(Booking.BookingStatus.CANCELLED) != Booking.BookingStatus.PENDING
+                        ? compensateCancelled(event, booking)
+                        : hotelServiceClient.confirmRoom(booking.getRoomId(), booking.getStartDate(),
+                                        booking.getEndDate(), booking.getCorrelationId())
+                                .flatMap(confirmed -> confirmed
+                                        ? onConfirmed(event, booking)
+                                        : retryOrGiveUp(event, booking, "Room confirmation failed")));
+    }
+
+    private Mono<Void> onConfirmed(OutboxEvent event, Booking booking) {
+        event.setStatus(OutboxEvent.OutboxStatus.DONE);
+
+        return inTransaction(() -> {
+                    // Отмена могла проскочить между проверкой статуса и подтверждением в hotel-service
+                    if (bookingRepository.completePending(booking.getId(), Booking.BookingStatus.CONFIRMED,
+                            LocalDateTime.now()) == 0) {
+                        return false;
+                    }
+                    saveEvent(event);
+                    return true;
+                })
+                .flatMap(confirmed -> {
+                    if (!confirmed) {
+                        return compensateCancelled(event, booking);
+                    }
+
+                    booking.setStatus(Booking.BookingStatus.CONFIRMED);
+                    booking.setUpdatedAt(LocalDateTime.now());
+                    log.info("Booking {} confirmed for room {}", booking.getId(), booking.getRoomId());
+                    complete(booking);
+                    return Mono.<Void>empty();
+                });
+    }
+
+    /**
+     * Бронирование отменили, пока сага держала номер. Отмена могла не записать RELEASE
+     * (номер ещё не был выбран) или снять блокировку раньше, чем она появилась,
+     * поэтому шаг превращается в свою компенсацию. Повторное снятие безопасно.
+     */
+    private Mono<Void> compensateCancelled(OutboxEvent event, Booking booking) {
+        booking.setStatus(Booking.BookingStatus.CANCELLED);
+        event.setStep(OutboxEvent.SagaStep.RELEASE);
+        event.setAttempts(0);
+        event.setStatus(OutboxEvent.OutboxStatus.PENDING);
+        event.setNextAttemptAt(LocalDateTime.now());
+
+        return inTransaction(() -> saveEvent(event))
+                .doOnNext(saved -> {
+                    log.info("Booking {} was cancelled during the saga, releasing room {}",
+                            booking.getId(), booking.getRoomId());
+                    conflictIndex.update(booking);
+                    complete(booking);
+                    wakeUp();
+                })
+                .then();
+    }
+
+    private Mono<Void> retryOrGiveUp(OutboxEvent event, Booking booking, String error) {
+        int attempts = event.getAttempts() + 1;
+        int maxAttempts = event.getStep() == OutboxEvent.SagaStep.RELEASE
+                ? outboxProperties.getReleaseMaxAttempts()
+                : outboxProperties.getMaxAttempts();
+
+        if (booking == null || attempts >= maxAttempts) {
+            return giveUp(event, booking, error);
+        }
+
+        event.setAttempts(attempts);
+        event.setLastError(error);
+        event.setStatus(OutboxEvent.OutboxStatus.PENDING);
+        event.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+
+        log.warn("Outbox event {} step {} failed (attempt {}), retrying: {}",
+                event.getId(), event.getStep(), attempts, error);
+        return inTransaction(() -> saveEvent(event)).then();
+    }
+
+    /**
+     * Шаг окончательно не удался. Бронирование отменяется; если номер уже был заблокирован
+     * (сбой подтверждения), шаг превращается в компенсацию RELEASE.
+     * Неудачная блокировка не компенсируется: чужие ночи снимать нельзя, а своя блокировка истечёт сама.
+     */
+    private Mono<Void> giveUp(OutboxEvent event, Booking booking, String error) {
+        event.setLastError(error);
+
+        if (booking == null || event.getStep() == OutboxEvent.SagaStep.RELEASE) {
+            log.error("Outbox event {} step {} failed permanently: {}", event.getId(), event.getStep(), error);
+            event.setStatus(OutboxEvent.OutboxStatus.FAILED);
+            return inTransaction(() -> saveEvent(event)).then();
+        }
+
+        boolean compensate = event.getStep() == OutboxEvent.SagaStep.CONFIRM;
+
+        booking.setStatus(Booking.BookingStatus.CANCELLED);
+        booking.setUpdatedAt(LocalDateTime.now());
+
+        if (compensate) {
+            event.setStep(OutboxEvent.SagaStep.RELEASE);
+            event.setAttempts(0);
+            event.setStatus(OutboxEvent.OutboxStatus.PENDING);
+            event.setNextAttemptAt(LocalDateTime.now());
+        } else {
+            event.setStatus(OutboxEvent.OutboxStatus.DONE);
+        }
+
+        return inTransaction(() -> {
+                    // 0 строк - бронирование уже отменил пользователь, статус тот же
+                    bookingRepository.completePending(booking.getId(), Booking.BookingStatus.CANCELLED,
+                            booking.getUpdatedAt());
+                    return saveEvent(event);
+                })
+                .doOnNext(saved -> {
+                    log.warn("Booking {} cancelled by saga: {}", booking.getId(), error);
+                    conflictIndex.update(booking);
+                    complete(booking);
+                    if (compensate) {
+                        wakeUp();
+                    }
+                })
+                .then();
+    }
+
+    private void complete(Booking booking) {
+        Sinks.One<Booking> sink = waiters.remove(booking.getCorrelationId());
+        if (sink != null) {
+            sink.tryEmitValue(booking);
+        }
+    }
+
+    private OutboxEvent saveEvent(OutboxEvent event) {
+        event.setUpdatedAt(LocalDateTime.now());
+        return outboxEventRepository.save(event);
+    }
+
+    private Duration backoff(int attempts) {
+        long initial = outboxProperties.getInitialBackoff().toMillis();
+        long delay = Math.min(outboxProperties.getMaxBackoff().toMillis(), initial << Math.min(attempts - 1, 20));
+        // Небольшой разброс, чтобы повторы не приходили пачкой
+        return Duration.ofMillis(delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1));
+    }
+
+    private <T> Mono<T> inTransaction(Supplier<T> action) {
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> action.get()))
+                .subscribeOn(jdbcScheduler);
+    }
+}
@@ -3,102 +3,223 @@ package org.service.booking.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.service.booking.client.HotelServiceClient;
-import org.service.booking.dto.RoomDTO;
+import org.service.booking.config.OutboxProperties;
+import org.service.booking.dto.BookingPage;
+import org.service.booking.dto.GroupHoldRequest;
 import org.service.booking.entity.Booking;
+import org.service.booking.entity.OutboxEvent;
 import org.service.booking.entity.User;
 import org.service.booking.exception.BookingNotFoundException;
 import org.service.booking.exception.RoomNotAvailableException;
 import org.service.booking.repository.BookingRepository;
+import org.service.booking.repository.OutboxEventRepository;
 import org.service.booking.repository.UserRepository;
+import org.service.booking.util.BookingCursor;
 import org.service.booking.util.CorrelationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Сага бронирования: запрос записывает бронирование и шаг саги в outbox, удалённые вызовы
+ * hotel-service выполняет {@link BookingSagaDispatcher}. Шаги с JPA выполняются
+ * в коротких транзакциях на {@code jdbcScheduler}.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class BookingService {
 
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_GROUP_SIZE = 50;
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final HotelServiceClient hotelServiceClient;
-
-    @Transactional
-    public Booking createBookingWithAutoSelect(String username, LocalDate startDate, LocalDate endDate) {
+    private final TransactionTemplate transactionTemplate;
+    private final Scheduler jdbcScheduler;
+    private final OutboxEventRepository outboxEventRepository;
+    private final BookingSagaDispatcher sagaDispatcher;
+    private final OutboxProperties outboxProperties;
+    private final IdempotencyStore idempotencyStore;
+    private final UserIdResolver userIdResolver;
+    private final BookingConflictIndex conflictIndex;
+
+    public Mono<Booking> createBookingWithAutoSelect(String username, LocalDate startDate, LocalDate endDate) {
         log.info("Auto-selecting room for user: {}, dates: {} to {}", username, startDate, endDate);
 
-        validateDates(startDate, endDate);
-        User user = getUserByUsername(username);
+        String correlationId = getOrGenerateCorrelationId();
 
-        List<RoomDTO> availableRooms = hotelServiceClient.findAvailableRooms(startDate, endDate);
-
-        if (availableRooms.isEmpty()) {
-            throw new RoomNotAvailableException("No available rooms for the selected dates");
-        }
-
-        RoomDTO selectedRoom = availableRooms.get(0);
-        log.info("Auto-selected room: {} for user: {}", selectedRoom.getId(), username);
-
-        return createBooking(user, selectedRoom.getId(), startDate, endDate);
+        // Номер выберет и заблокирует диспетчер саги
+        return Mono.defer(() -> {
+            validateDates(startDate, endDate);
+            Long userId = userIdResolver.resolve(username);
+            return createIdempotent(userId, correlationId,
+                    () -> startSaga(userId, null, startDate, endDate, correlationId));
+        });
     }
 
-    @Transactional
-    public Booking createBookingWithRoomSelection(String username, Long roomId, LocalDate startDate, LocalDate endDate) {
+    public Mono<Booking> createBookingWithRoomSelection(String username, Long roomId, LocalDate startDate, LocalDate endDate) {
         log.info("Creating booking for user: {}, room: {}, dates: {} to {}", username, roomId, startDate, endDate);
 
-        validateDates(startDate, endDate);
-        User user = getUserByUsername(username);
+        String correlationId = getOrGenerateCorrelationId();
+
+        return Mono.defer(() -> {
+            validateDates(startDate, endDate);
+            Long userId = userIdResolver.resolve(username);
+            return createIdempotent(userId, correlationId, () -> hotelServiceClient
+                    .checkRoomAvailability(roomId, startDate, endDate)
+                    .flatMap(isAvailable -> {
+                        if (!isAvailable) {
+                            return Mono.<Booking>error(new RoomNotAvailableException(
+                                    "Room " + roomId + " is not available for the selected dates"));
+                        }
+
+                        return startSaga(userId, roomId, startDate, endDate, correlationId);
+                    }));
+        });
+    }
 
-        boolean isAvailable = hotelServiceClient.checkRoomAvailability(roomId, startDate, endDate);
+    /**
+     * Групповое бронирование на одни даты. Все номера блокируются одним вызовом hotel-service
+     * (все или ни одного), бронирования и шаги CONFIRM сохраняются одной транзакцией,
+     * подтверждение номеров выполняет {@link BookingSagaDispatcher}.
+     * correlationId бронирования в группе - X-Correlation-ID запроса и порядковый номер через ':'.
+     */
+    public Mono<List<Booking>> createGroupBooking(String username, List<Long> roomIds, Integer roomCount,
+                                                  LocalDate startDate, LocalDate endDate) {
+        log.info("Creating group booking for user: {}, rooms: {}, auto-selected: {}, dates: {} to {}",
+                username, roomIds, roomCount, startDate, endDate);
+
+        String correlationId = getOrGenerateCorrelationId();
+
+        return Mono.defer(() -> {
+            validateDates(startDate, endDate);
+            List<GroupHoldRequest.Item> items = groupItems(roomIds, roomCount, correlationId);
+            Long userId = userIdResolver.resolve(username);
+            String key = "group:" + userId + ":" + correlationId;
+
+            return idempotencyStore.execute(key, () -> findGroupByCorrelationId(userId, items)
+                            .switchIfEmpty(Mono.defer(() -> startGroupSaga(userId, items, startDate, endDate))))
+                    .doOnNext(bookings -> {
+                        if (bookings.stream().anyMatch(booking -> booking.getStatus() == Booking.BookingStatus.PENDING)) {
+                            idempotencyStore.evict(key);
+                        }
+                    });
+        });
+    }
 
-        if (!isAvailable) {
-            throw new RoomNotAvailableException("Room " + roomId + " is not available for the selected dates");
+    /**
+     * Страница истории бронирований (keyset-пагинация по created_at, id).
+     * Стоимость страницы не зависит от её номера; общее количество считается только по запросу.
+     */
+    @Transactional(readOnly = true)
+    public BookingPage getUserBookings(String username, String cursor, int limit, boolean includeTotal) {
+        log.info("Getting bookings for user: {}, cursor: {}, limit: {}", username, cursor, limit);
+        Long userId = userIdResolver.resolve(username);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Одна лишняя запись показывает, есть ли следующая страница
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<Booking> found;
+        if (cursor == null || cursor.isBlank()) {
+            found = bookingRepository.findPageByUserId(userId, page);
+        } else {
+            BookingCursor position = BookingCursor.decode(cursor);
+            found = bookingRepository.findPageByUserIdAfter(userId, position.getCreatedAt(), position.getId(), page);
         }
 
-        return createBooking(user, roomId, startDate, endDate);
-    }
+        boolean hasMore = found.size() > pageSize;
+        List<Booking> bookings = hasMore ? new ArrayList<>(found.subList(0, pageSize)) : found;
 
-    @Transactional(readOnly = true)
-    public List<Booking> getUserBookings(String username) {
-        log.info("Getting bookings for user: {}", username);
-        User user = getUserByUsername(username);
-        return bookingRepository.findByUserOrderByCreatedAtDesc(user);
+        return BookingPage.builder()
+                .bookings(bookings)
+                .nextCursor(hasMore ? BookingCursor.of(bookings.get(bookings.size() - 1)).encode() : null)
+                .totalCount(includeTotal ? bookingRepository.countByUserId(userId) : null)
+                .build();
     }
 
     @Transactional(readOnly = true)
     public Booking getBookingByIdAndUser(Long id, String username) {
         log.info("Getting booking: {} for user: {}", id, username);
-        User user = getUserByUsername(username);
-
-        return bookingRepository.findByIdAndUser(id, user)
+        return bookingRepository.findByIdAndUserId(id, userIdResolver.resolve(username))
                 .orElseThrow(() -> {
                     log.warn("Booking not found or access denied: {} for user: {}", id, username);
                     return new BookingNotFoundException("Booking not found with id: " + id + " for user: " + username);
                 });
     }
 
-    @Transactional
-    public void cancelBooking(Long id, String username) {
+    public Mono<Void> cancelBooking(Long id, String username) {
         log.info("Cancelling booking: {} for user: {}", id, username);
-        User user = getUserByUsername(username);
-
-        Booking booking = bookingRepository.findByIdAndUser(id, user)
-                .orElseThrow(() -> new BookingNotFoundException("Booking not found with id: " + id));
-
-        validateCancellation(booking);
-
-        hotelServiceClient.releaseRoom(booking.getRoomId(), booking.getStartDate(), booking.getEndDate());
-
-        booking.setStatus(Booking.BookingStatus.CANCELLED);
-        booking.setUpdatedAt(LocalDateTime.now());
-        bookingRepository.save(booking);
 
-        log.info("Booking cancelled successfully: {}", id);
+        String correlationId = getOrGenerateCorrelationId();
+
+        return Mono.defer(() -> {
+            Long userId = userIdResolver.resolve(username);
+            String key = "cancel:" + userId + ":" + id + ":" + correlationId;
+
+            return idempotencyStore.execute(key, () -> inTransaction(() -> {
+                        Booking booking = bookingRepository.findByIdAndUserId(id, userId)
+                                .orElseThrow(() -> new BookingNotFoundException("Booking not found with id: " + id));
+
+                        // Повтор той же отмены, результат которой уже не в кэше
+                        if (booking.getStatus() == Booking.BookingStatus.CANCELLED
+                                && correlationId.equals(booking.getCancelCorrelationId())) {
+                            log.info("Booking {} already cancelled by request {}", id, correlationId);
+                            return null;
+                        }
+
+                        validateCancellation(booking);
+
+                        booking.setStatus(Booking.BookingStatus.CANCELLED);
+                        booking.setCancelCorrelationId(correlationId);
+                        booking.setUpdatedAt(LocalDateTime.now());
+                        Booking cancelled = bookingRepository.save(booking);
+
+                        // Номер снимается в фоне через outbox; если сага ещё не выбрала номер, снимать нечего
+                        if (cancelled.getRoomId() != null) {
+                            outboxEventRepository.save(OutboxEvent.builder()
+                                    .bookingId(cancelled.getId())
+                                    .step(OutboxEvent.SagaStep.RELEASE)
+                                    .status(OutboxEvent.OutboxStatus.PENDING)
+                                    .attempts(0)
+                                    .nextAttemptAt(LocalDateTime.now())
+                                    .createdAt(LocalDateTime.now())
+                                    .updatedAt(LocalDateTime.now())
+                                    .build());
+                        }
+                        return cancelled;
+                    })
+                    // Сага изменила бронирование после чтения; повтор отмены увидит актуальное состояние
+                    .onErrorMap(OptimisticLockingFailureException.class,
+                            e -> new IllegalStateException("Booking was changed concurrently, retry the cancellation"))
+                    .doOnNext(booking -> {
+                        conflictIndex.update(booking);
+                        if (booking.getRoomId() != null) {
+                            sagaDispatcher.wakeUp();
+                        }
+                        log.info("Booking cancelled successfully: {}", id);
+                    })
+                    .then());
+        });
     }
 
     @Transactional(readOnly = true)
@@ -108,11 +229,6 @@ public class BookingService {
     }
 
     // Вспомогательные методы
-    private User getUserByUsername(String username) {
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + username));
-    }
-
     private void validateDates(LocalDate startDate, LocalDate endDate) {
         if (startDate == null || endDate == null) {
             throw new IllegalArgumentException("Start date and end date are required");
@@ -149,33 +265,198 @@ public class BookingService {
         }
     }
 
-    private Booking createBooking(User user, Long roomId, LocalDate startDate, LocalDate endDate) {
-        boolean roomLocked = hotelServiceClient.lockRoom(roomId, startDate, endDate);
+    /**
+     * Повтор создания с тем же correlationId возвращает уже созданное бронирование:
+     * сначала из кэша идемпотентности, затем по уникальному индексу correlation_id.
+     * PENDING не кэшируется, чтобы повтор увидел актуальный статус.
+     */
+    private Mono<Booking> createIdempotent(Long userId, String correlationId, Supplier<Mono<Booking>> create) {
+        String key = "create:" + userId + ":" + correlationId;
+
+        return idempotencyStore.execute(key, () -> findByCorrelationId(userId, correlationId)
+                        .switchIfEmpty(Mono.defer(create)))
+                .doOnNext(booking -> {
+                    if (booking.getStatus() == Booking.BookingStatus.PENDING) {
+                        idempotencyStore.evict(key);
+                    }
+                })
+                .flatMap(booking -> {
+                    if (booking.getStatus() == Booking.BookingStatus.CANCELLED) {
+                        return Mono.<Booking>error(new RoomNotAvailableException(booking.getRoomId() != null
+                                ? "Room " + booking.getRoomId() + " is not available for the selected dates"
+                                : "No available rooms for the selected dates"));
+                    }
+
+                    log.info("Booking {} created with status {}", booking.getId(), booking.getStatus());
+                    return Mono.just(booking);
+                });
+    }
 
-        if (!roomLocked) {
-            throw new RoomNotAvailableException("Failed to lock room " + roomId);
+    private Mono<Booking> findByCorrelationId(Long userId, String correlationId) {
+        return inTransaction(() -> bookingRepository.findByCorrelationId(correlationId)
+                .map(booking -> {
+                    if (!booking.getUser().getId().equals(userId)) {
+                        throw new IllegalArgumentException("Correlation id is already used by another request");
+                    }
+                    log.info("Booking {} already exists for correlation id {}", booking.getId(), correlationId);
+                    return booking;
+                })
+                .orElse(null));
+    }
+
+    /**
+     * Бронирование PENDING и первый шаг саги записываются в одной транзакции, поэтому шаг
+     * не теряется при сбое между записью и вызовом hotel-service. Удалённые шаги выполняет
+     * {@link BookingSagaDispatcher}; если исход не получен за awaitTimeout, возвращается PENDING.
+     */
+    private Mono<Booking> startSaga(Long userId, Long roomId, LocalDate startDate, LocalDate endDate,
+                                    String correlationId) {
+        Mono<Booking> outcome = sagaDispatcher.awaitOutcome(correlationId);
+
+        return inTransaction(() -> {
+                    Booking booking = bookingRepository.save(Booking.builder()
+                            // Ссылка на пользователя без SELECT
+                            .user(userRepository.getReferenceById(userId))
+                            .roomId(roomId)
+                            .startDate(startDate)
+                            .endDate(endDate)
+                            .status(Booking.BookingStatus.PENDING)
+                            .correlationId(correlationId)
+                            .createdAt(LocalDateTime.now())
+                            .updatedAt(LocalDateTime.now())
+                            .build());
+
+                    outboxEventRepository.save(OutboxEvent.builder()
+                            .bookingId(booking.getId())
+                            .step(OutboxEvent.SagaStep.HOLD)
+                            .status(OutboxEvent.OutboxStatus.PENDING)
+                            .attempts(0)
+                            .nextAttemptAt(LocalDateTime.now())
+                            .createdAt(LocalDateTime.now())
+                            .updatedAt(LocalDateTime.now())
+                            .build());
+                    return booking;
+                })
+                .doOnNext(saved -> {
+                    conflictIndex.update(saved);
+                    sagaDispatcher.wakeUp();
+                })
+                .flatMap(saved -> outcome.timeout(outboxProperties.getAwaitTimeout(), Mono.just(saved)))
+                // Параллельный запрос с тем же correlationId (например, на другом экземпляре) успел раньше
+                .onErrorResume(DataIntegrityViolationException.class, e -> findByCorrelationId(userId, correlationId)
+                        .switchIfEmpty(Mono.error(e)))
+                .doFinally(signal -> sagaDispatcher.forget(correlationId));
+    }
+
+    /**
+     * Блокировки уже получены hotel-service, поэтому сага группы начинается с шага CONFIRM.
+     * Если запись не удалась, блокировки снимет hotel-service по истечении их срока.
+     */
+    private Mono<List<Booking>> startGroupSaga(Long userId, List<GroupHoldRequest.Item> items,
+                                               LocalDate startDate, LocalDate endDate) {
+        Map<String, Mono<Booking>> outcomes = items.stream()
+                .collect(Collectors.toMap(GroupHoldRequest.Item::getCorrelationId,
+                        item -> sagaDispatcher.awaitOutcome(item.getCorrelationId())));
+
+        return hotelServiceClient.holdRooms(startDate, endDate, items)
+                .filter(rooms -> rooms.size() == items.size())
+                .switchIfEmpty(Mono.error(() -> new RoomNotAvailableException(
+                        "Rooms are not available for the selected dates")))
+                .flatMap(rooms -> inTransaction(() -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    User user = userRepository.getReferenceById(userId);
+
+                    List<Booking> bookings = new ArrayList<>(items.size());
+                    for (int i = 0; i < items.size(); i++) {
+                        bookings.add(Booking.builder()
+                                .user(user)
+                                .roomId(rooms.get(i).getId())
+                                .startDate(startDate)
+                                .endDate(endDate)
+                                .status(Booking.BookingStatus.PENDING)
+                                .correlationId(items.get(i).getCorrelationId())
+                                .createdAt(now)
+                                .updatedAt(now)
+                                .build());
+                    }
+                    List<Booking> saved = bookingRepository.saveAll(bookings);
+
+                    outboxEventRepository.saveAll(saved.stream()
+                            .map(booking -> OutboxEvent.builder()
+                                    .bookingId(booking.getId())
+                                    .step(OutboxEvent.SagaStep.CONFIRM)
+                                    .status(OutboxEvent.OutboxStatus.PENDING)
+                                    .attempts(0)
+                                    .nextAttemptAt(now)
+                                    .createdAt(now)
+                                    .updatedAt(now)
+                                    .build())
+                            .toList());
+                    return saved;
+                }))
+                .doOnNext(saved -> {
+                    saved.forEach(conflictIndex::update);
+                    sagaDispatcher.wakeUp();
+                })
+                .flatMap(saved -> Flux.fromIterable(saved)
+                        .flatMapSequential(booking -> outcomes.get(booking.getCorrelationId())
+                                .timeout(outboxProperties.getAwaitTimeout(), Mono.just(booking)))
+                        .collectList())
+                .onErrorResume(DataIntegrityViolationException.class, e -> findGroupByCorrelationId(userId, items)
+                        .switchIfEmpty(Mono.error(e)))
+                .doFinally(signal -> items.forEach(item -> sagaDispatcher.forget(item.getCorrelationId())));
+    }
+
+    private Mono<List<Booking>> findGroupByCorrelationId(Long userId, List<GroupHoldRequest.Item> items) {
+        List<String> correlationIds = items.stream().map(GroupHoldRequest.Item::getCorrelationId).toList();
+
+        return inTransaction(() -> {
+            List<Booking> found = bookingRepository.findByCorrelationIdIn(correlationIds);
+            if (found.isEmpty()) {
+                return null;
+            }
+            if (found.stream().anyMatch(booking -> !booking.getUser().getId().equals(userId))) {
+                throw new IllegalArgumentException("Correlation id is already used by another request");
+            }
+
+            log.info("Group booking already exists for correlation ids {}", correlationIds);
+            Map<String, Integer> order = correlationIds.stream()
+                    .collect(Collectors.toMap(Function.identity(), correlationIds::indexOf));
+            List<Booking> group = new ArrayList<>(found);
+            group.sort(Comparator.comparing(booking -> order.get(booking.getCorrelationId())));
+            return group;
+        });
+    }
+
+    private List<GroupHoldRequest.Item> groupItems(List<Long> roomIds, Integer roomCount, String correlationId) {
+        List<Long> requested = roomIds != null ? roomIds : List.of();
+        int autoCount = roomCount != null ? roomCount : 0;
+        int size = requested.size() + autoCount;
+
+        if (autoCount < 0 || size == 0 || size > MAX_GROUP_SIZE) {
+            throw new IllegalArgumentException("Group booking must contain from 1 to " + MAX_GROUP_SIZE + " rooms");
         }
 
-        try {
-            Booking booking = Booking.builder()
-                    .user(user)
-                    .roomId(roomId)
-                    .startDate(startDate)
-                    .endDate(endDate)
-                    .status(Booking.BookingStatus.CONFIRMED)
-                    .correlationId(getOrGenerateCorrelationId())
-                    .createdAt(LocalDateTime.now())
-                    .updatedAt(LocalDateTime.now())
-                    .build();
-
-            Booking savedBooking = bookingRepository.save(booking);
-            log.info("Booking created successfully: {}", savedBooking.getId());
-            return savedBooking;
-
-        } catch (Exception e) {
-            hotelServiceClient.releaseRoom(roomId, startDate, endDate);
-            throw new RuntimeException("Failed to create booking: " + e.getMessage(), e);
+        if (requested.stream().anyMatch(Objects::isNull) || new HashSet<>(requested).size() != requested.size()) {
+            throw new IllegalArgumentException("Room ids in a group booking must be unique");
         }
+
+        List<GroupHoldRequest.Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(GroupHoldRequest.Item.builder()
+                    .roomId(i < requested.size() ? requested.get(i) : null)
+                    .correlationId(correlationId + ":" + i)
+                    .build());
+        }
+        return items;
+    }
+
+    /**
+     * Блокирующий шаг саги в отдельной короткой транзакции на пуле JDBC-потоков
+     */
+    private <T> Mono<T> inTransaction(Supplier<T> action) {
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> action.get()))
+                .subscribeOn(jdbcScheduler);
     }
 
     private String getOrGenerateCorrelationId() {
@@ -0,0 +1,61 @@
+package org.service.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.service.booking.config.IdempotencyProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов операций по ключу идемпотентности с ограниченным временем жизни.
+ * Повторный запрос с тем же ключом подписывается на уже запущенную или завершённую операцию
+ * и не выполняет её снова. Ошибки не кэшируются: повтор после сбоя выполняет операцию заново.
+ * Кэш живёт в памяти экземпляра; после рестарта повторы разрешает уникальный индекс в БД.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private final Cache<String, Mono<Object>> results;
+
+    public IdempotencyStore(IdempotencyProperties properties) {
+        this.results = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .maximumSize(properties.getMaxEntries())
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String key, Supplier<Mono<T>> action) {
+        return Mono.defer(() -> {
+            boolean[] created = new boolean[1];
+            Mono<Object> result = results.get(key, k -> {
+                created[0] = true;
+                AtomicReference<Mono<Object>> own = new AtomicReference<>();
+                Mono<Object> attempt = Mono.defer(action)
+                        .cast(Object.class)
+                        // Удаляется только своя запись: повтор мог уже сохранить под ключом новую операцию
+                        .doOnError(e -> results.asMap().remove(k, own.get()))
+                        .cache();
+                own.set(attempt);
+                return attempt;
+            });
+
+            if (!created[0]) {
+                log.info("Duplicate request for key {}, returning stored result", key);
+            }
+            return (Mono<T>) result;
+        });
+    }
+
+    /**
+     * Забыть результат, например промежуточный, который на повторе нужно перечитать
+     */
+    public void evict(String key) {
+        results.invalidate(key);
+    }
+}
@@ -0,0 +1,81 @@
+package org.service.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.service.booking.config.UserPrincipal;
+import org.service.booking.entity.User;
+import org.service.booking.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Определение id пользователя по имени без запроса к таблице users на каждом вызове.
+ * Сначала берётся userId из claims проверенного JWT текущего запроса, затем - из ограниченного
+ * кэша имя→id, и только при промахе выполняется запрос. Кэш сбрасывается при изменении
+ * и удалении пользователя.
+ */
+@Slf4j
+@Component
+public class UserIdResolver {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Long> idsByUsername;
+
+    public UserIdResolver(UserRepository userRepository,
+                          @Value("${booking.user-cache.max-size:10000}") long maxSize,
+                          @Value("${booking.user-cache.ttl:30m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.idsByUsername = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .build();
+    }
+
+    public Long resolve(String username) {
+        Long fromToken = fromPrincipal(username);
+        if (fromToken != null) {
+            return fromToken;
+        }
+
+        return idsByUsername.get(username, key -> {
+            log.debug("User id cache miss for {}", key);
+            return userRepository.findByUsername(key)
+                    .map(User::getId)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found: " + key));
+        });
+    }
+
+    /**
+     * Внутри транзакции запись сбрасывается и сразу, и после фиксации: конкурентный промах
+     * до коммита прочитал бы старую строку и вернул в кэш устаревшее имя→id
+     */
+    public void evict(String username) {
+        idsByUsername.invalidate(username);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                idsByUsername.invalidate(username);
+            }
+        });
+    }
+
+    private Long fromPrincipal(String username) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null
+                && authentication.getPrincipal() instanceof UserPrincipal principal
+                && principal.getUsername().equals(username)) {
+            return principal.getUserId();
+        }
+        return null;
+    }
+}
@@ -1,27 +1,30 @@
 package org.service.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.service.booking.dto.AuthRequest;
 import org.service.booking.dto.AuthResponse;
 import org.service.booking.dto.UserDTO;
 import org.service.booking.entity.User;
 import org.service.booking.repository.UserRepository;
 import org.service.booking.config.JwtTokenProvider;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtTokenProvider jwtTokenProvider;
+    private final UserIdResolver userIdResolver;
 
     public List<UserDTO> getAllUsers() {
         return userRepository.findAll().stream()
@@ -47,7 +50,7 @@ public class UserService {
             throw new RuntimeException("Email already exists: " + user.getEmail());
         }
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHasher.encode(user.getPassword()));
         return userRepository.save(user);
     }
 
@@ -55,12 +58,14 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
 
+        // Сбрасывается и после коммита, пока старое имя ещё можно прочитать из БД
+        userIdResolver.evict(user.getUsername());
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
         user.setRole(request.getRole());
 
         if (request.getPassword() != null && !request.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(request.getPassword()));
+            user.setPassword(passwordHasher.encode(request.getPassword()));
         }
 
         User updatedUser = userRepository.save(user);
@@ -71,9 +76,12 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
         userRepository.delete(user);
+        userIdResolver.evict(user.getUsername());
     }
 
 
+    // Без транзакции: пока пароль ждёт пул хэширования, соединение с БД не удерживается
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AuthResponse register(AuthRequest request) {
         // Проверяем, не существует ли пользователь
         if (userRepository.findByUsername(request.getUsername()).isPresent()) {
@@ -83,7 +91,7 @@ public class UserService {
         // Создаем нового пользователя
         User user = User.builder()
                 .username(request.getUsername())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHasher.encode(request.getPassword()))
                 .email(request.getEmail())
                 .role(request.getRole() != null ? request.getRole() : "USER")
                 .build();
@@ -102,14 +110,22 @@ public class UserService {
                 .build();
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AuthResponse authenticate(AuthRequest request) {
         User user = getUserByUsername(request.getUsername());
 
-        // Проверяем пароль с помощью PasswordEncoder
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        // Проверяем пароль в пуле хэширования
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid password");
         }
 
+        // Пароль известен только сейчас: хэш со старой стоимостью BCrypt пересчитываем
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            user.setPassword(passwordHasher.encode(request.getPassword()));
+            user = userRepository.save(user);
+            log.info("Rehashed password of user {} with current bcrypt strength", user.getUsername());
+        }
+
         // Генерируем JWT токен
         String token = jwtTokenProvider.generateToken(user);
 
@@ -0,0 +1,49 @@
+package org.service.booking.util;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.service.booking.entity.Booking;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации истории бронирований: позиция последней записи страницы
+ * в порядке (created_at, id) по убыванию. Клиенту отдаётся непрозрачной строкой base64url.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BookingCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public static BookingCursor of(Booking booking) {
+        return new BookingCursor(booking.getCreatedAt(), booking.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new BookingCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException - тоже IllegalArgumentException
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -5,7 +5,7 @@ import java.util.UUID;
 
 public class CorrelationContext {
 
-    private static final String CORRELATION_ID_HEADER = "X-Correlation-ID";
+    public static final String CORRELATION_ID_HEADER = "X-Correlation-ID";
 
     public static void setCorrelationId(String id) {
         MDC.put(CORRELATION_ID_HEADER, id);
@@ -0,0 +1,180 @@
+package org.service.booking.util;
+
+/**
+ * Дерево интервалов [start, end) на основе AVL-дерева, упорядоченного по (start, id).
+ * Каждый узел хранит максимальный end своего поддерева, поэтому проверка пересечения,
+ * добавление и удаление выполняются за O(log n). Не потокобезопасно.
+ */
+public class IntervalTree {
+
+    private Node root;
+    private int size;
+
+    /**
+     * Добавить интервал; интервал с тем же (start, id) заменяется
+     */
+    public void add(long start, long end, long id) {
+        if (end <= start) {
+            throw new IllegalArgumentException("Interval end must be after start");
+        }
+        root = insert(root, start, end, id);
+    }
+
+    public boolean remove(long start, long id) {
+        int before = size;
+        root = delete(root, start, id);
+        return size < before;
+    }
+
+    /**
+     * Есть ли интервал, пересекающийся с [start, end)
+     */
+    public boolean overlaps(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start < end && node.end > start) {
+                return true;
+            }
+            // В левом поддереве есть интервал, заканчивающийся после start, - пересечение ищем там:
+            // если его там нет, то нет и справа (там начала не меньше, чем у любого левого)
+            if (node.left != null && node.left.maxEnd > start) {
+                node = node.left;
+            } else {
+                if (node.start >= end) {
+                    return false; // Все правые интервалы начинаются ещё позже
+                }
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Node insert(Node node, long start, long end, long id) {
+        if (node == null) {
+            size++;
+            return new Node(start, end, id);
+        }
+
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, start, end, id);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, start, end, id);
+        } else {
+            node.end = end;
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+
+            // Заменяем наименьшим узлом правого поддерева
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.start = successor.start;
+            node.end = successor.end;
+            node.id = successor.id;
+            size++; // delete ниже уменьшит size ещё раз
+            node.right = delete(node.right, successor.start, successor.id);
+        }
+        return balance(node);
+    }
+
+    private int compare(long start, long id, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node {
+        private long start;
+        private long end;
+        private long id;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long start, long end, long id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.service.booking.repository.BookingRepository;
 import org.service.booking.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -52,7 +53,7 @@ class BookingServiceIntegrationTest {
 
         // Act
         Booking savedBooking = bookingRepository.save(booking);
-        List<Booking> foundBookings = bookingRepository.findByUserOrderByCreatedAtDesc(savedUser);
+        List<Booking> foundBookings = bookingRepository.findPageByUserId(savedUser.getId(), PageRequest.of(0, 10));
 
         // Assert
         assertNotNull(savedBooking.getId());
@@ -63,7 +64,7 @@ class BookingServiceIntegrationTest {
     }
 
     @Test
-    void testFindByIdAndUser() {
+    void testFindByIdAndUserId() {
         // Arrange
         User user = User.builder()
                 .username("user1")
@@ -86,7 +87,7 @@ class BookingServiceIntegrationTest {
         Booking savedBooking = bookingRepository.save(booking);
 
         // Act
-        var result = bookingRepository.findByIdAndUser(savedBooking.getId(), savedUser);
+        var result = bookingRepository.findByIdAndUserId(savedBooking.getId(), savedUser.getId());
 
         // Assert
         assertTrue(result.isPresent());
@@ -0,0 +1,57 @@
+package org.service.booking.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.service.booking.entity.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "testSecretKeyForHotelBookingSystem";
+
+    private final JwtTokenProvider provider = new JwtTokenProvider(SECRET, 100, Duration.ofHours(1));
+
+    @Test
+    void getClaims_SameToken_ParsedOnce() {
+        String token = provider.generateToken(User.builder().id(7L).username("alice").role("USER").build());
+
+        Claims first = provider.getClaims(token);
+        Claims second = provider.getClaims(token);
+
+        assertEquals("alice", first.getSubject());
+        assertEquals(7, ((Number) first.get("userId")).intValue());
+        // Повторная проверка берёт claims из кэша
+        assertSame(first, second);
+    }
+
+    @Test
+    void getClaims_ForeignSignature_Rejected() {
+        String token = Jwts.builder()
+                .setSubject("mallory")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS256, "anotherSecretKeyForHotelBooking".getBytes(StandardCharsets.UTF_8))
+                .compact();
+
+        assertThrows(SignatureException.class, () -> provider.getClaims(token));
+        assertFalse(provider.validateToken(token));
+    }
+
+    @Test
+    void getClaims_ExpiredToken_Rejected() {
+        String token = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(SignatureAlgorithm.HS256, SECRET.getBytes(StandardCharsets.UTF_8))
+                .compact();
+
+        assertFalse(provider.validateToken(token));
+    }
+}
@@ -0,0 +1,74 @@
+package org.service.booking.config;
+
+import org.junit.jupiter.api.Test;
+import org.service.common.util.InternalPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Value("${internal.principal.secret}")
+    private String secret;
+
+    @Test
+    void internalCall_WithoutPrincipal_Forbidden() throws Exception {
+        mockMvc.perform(conflicts())
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/bookings/rooms/{roomId}/active-count", 101L))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void internalCall_UserPrincipalFromGateway_Forbidden() throws Exception {
+        mockMvc.perform(conflicts().header(InternalPrincipal.HEADER, principal("alice", "USER")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void internalCall_ForgedPrincipal_Forbidden() throws Exception {
+        String principal = InternalPrincipal.sign("hotel-service", null, InternalPrincipal.SERVICE_ROLE,
+                Instant.now().getEpochSecond() + 60, "otherKey".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(conflicts().header(InternalPrincipal.HEADER, principal))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void internalCall_SignedServicePrincipal_Allowed() throws Exception {
+        mockMvc.perform(conflicts()
+                        .header(InternalPrincipal.HEADER, principal("hotel-service", InternalPrincipal.SERVICE_ROLE)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("false"));
+    }
+
+    private String principal(String username, String role) {
+        return InternalPrincipal.sign(username, null, role, Instant.now().getEpochSecond() + 60,
+                secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletRequestBuilder conflicts() {
+        LocalDate checkIn = LocalDate.now().plusDays(20);
+        return get("/api/bookings/rooms/{roomId}/conflicts", 101L)
+                .param("checkIn", checkIn.toString())
+                .param("checkOut", checkIn.plusDays(2).toString());
+    }
+}
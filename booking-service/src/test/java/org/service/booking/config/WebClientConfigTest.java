@@ -0,0 +1,42 @@
+package org.service.booking.config;
+
+import org.junit.jupiter.api.Test;
+import org.service.common.util.InternalPrincipal;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebClientConfigTest {
+
+    @Test
+    void servicePrincipal_SignsEachRequestAsService() {
+        // Arrange
+        InternalPrincipalProperties properties = new InternalPrincipalProperties();
+        properties.setSecret("internalKey");
+        ClientRequest request = ClientRequest.create(HttpMethod.POST,
+                URI.create("http://hotel-service/api/hotels/rooms/1/confirm")).build();
+        AtomicReference<ClientRequest> sent = new AtomicReference<>();
+
+        // Act
+        WebClientConfig.servicePrincipal(properties)
+                .filter(request, next -> {
+                    sent.set(next);
+                    return Mono.<ClientResponse>empty();
+                })
+                .block();
+
+        // Assert
+        InternalPrincipal principal = InternalPrincipal.verify(sent.get().headers().getFirst(InternalPrincipal.HEADER),
+                "internalKey".getBytes(StandardCharsets.UTF_8));
+        assertNotNull(principal);
+        assertEquals("booking-service", principal.getUsername());
+        assertEquals(InternalPrincipal.SERVICE_ROLE, principal.getRole());
+    }
+}
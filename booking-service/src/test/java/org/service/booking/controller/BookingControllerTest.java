@@ -3,17 +3,22 @@ package org.service.booking.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.service.booking.dto.BookingDTO;
+import org.service.booking.dto.BookingPage;
 import org.service.booking.dto.CreateBookingRequest;
 import org.service.booking.entity.Booking;
 import org.service.booking.entity.User;
 import org.service.booking.mapper.BookingMapper;
+import org.service.booking.service.BookingConflictIndex;
 import org.service.booking.service.BookingService;
+import org.service.booking.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -41,6 +46,12 @@ class BookingControllerTest {
     @MockBean
     private BookingMapper bookingMapper;
 
+    @MockBean
+    private BookingConflictIndex conflictIndex;
+
+    @MockBean
+    private UserService userService;
+
     private User testUser = User.builder()
             .id(1L)
             .username("testuser")
@@ -70,19 +81,24 @@ class BookingControllerTest {
     void createBooking_AutoSelect_Success() throws Exception {
         // Arrange
         CreateBookingRequest request = CreateBookingRequest.builder()
+                .isAutoSelect(true)
                 .startDate(LocalDate.now().plusDays(1))
                 .endDate(LocalDate.now().plusDays(3))
                 .build();
 
         when(bookingService.createBookingWithAutoSelect(eq("testuser"), any(), any()))
-                .thenReturn(testBooking);
+                .thenReturn(Mono.just(testBooking));
         when(bookingMapper.toDTO(testBooking)).thenReturn(testBookingDTO);
 
         // Act & Assert
-        mockMvc.perform(post("/api/bookings")
+        MvcResult result = mockMvc.perform(post("/api/bookings")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").value(1L))
                 .andExpect(jsonPath("$.status").value("CONFIRMED"));
@@ -95,20 +111,25 @@ class BookingControllerTest {
     void createBooking_RoomSelection_Success() throws Exception {
         // Arrange
         CreateBookingRequest request = CreateBookingRequest.builder()
+                .isAutoSelect(false)
                 .roomId(101L)
                 .startDate(LocalDate.now().plusDays(1))
                 .endDate(LocalDate.now().plusDays(3))
                 .build();
 
         when(bookingService.createBookingWithRoomSelection(eq("testuser"), eq(101L), any(), any()))
-                .thenReturn(testBooking);
+                .thenReturn(Mono.just(testBooking));
         when(bookingMapper.toDTO(testBooking)).thenReturn(testBookingDTO);
 
         // Act & Assert
-        mockMvc.perform(post("/api/bookings")
+        MvcResult result = mockMvc.perform(post("/api/bookings")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").value(1L));
 
@@ -122,16 +143,19 @@ class BookingControllerTest {
         List<Booking> bookings = List.of(testBooking);
         List<BookingDTO> bookingDTOs = List.of(testBookingDTO);
 
-        when(bookingService.getUserBookings("testuser")).thenReturn(bookings);
+        when(bookingService.getUserBookings("testuser", null, 20, false))
+                .thenReturn(BookingPage.builder().bookings(bookings).nextCursor("next").build());
         when(bookingMapper.toDTO(testBooking)).thenReturn(testBookingDTO);
 
         // Act & Assert
         mockMvc.perform(get("/api/bookings"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(header().doesNotExist("X-Total-Count"))
                 .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].id").value(1L));
 
-        verify(bookingService).getUserBookings("testuser");
+        verify(bookingService).getUserBookings("testuser", null, 20, false);
     }
 
     @Test
@@ -154,11 +178,15 @@ class BookingControllerTest {
     @WithMockUser(username = "testuser", roles = "USER")
     void cancelBooking_Success() throws Exception {
         // Arrange
-        doNothing().when(bookingService).cancelBooking(1L, "testuser");
+        when(bookingService.cancelBooking(1L, "testuser")).thenReturn(Mono.empty());
 
         // Act & Assert
-        mockMvc.perform(delete("/api/bookings/1")
+        MvcResult result = mockMvc.perform(delete("/api/bookings/1")
                         .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isNoContent());
 
         verify(bookingService).cancelBooking(1L, "testuser");
@@ -169,21 +197,44 @@ class BookingControllerTest {
     void createBooking_InvalidDates_ReturnsBadRequest() throws Exception {
         // Arrange
         CreateBookingRequest request = CreateBookingRequest.builder()
+                .isAutoSelect(false)
                 .roomId(101L)
                 .startDate(LocalDate.now().minusDays(1)) // Past date
                 .endDate(LocalDate.now().plusDays(3))
                 .build();
 
         when(bookingService.createBookingWithRoomSelection(eq("testuser"), eq(101L), any(), any()))
-                .thenThrow(new IllegalArgumentException("Start date cannot be in the past"));
+                .thenReturn(Mono.error(new IllegalArgumentException("Start date cannot be in the past")));
 
         // Act & Assert
-        mockMvc.perform(post("/api/bookings")
+        MvcResult result = mockMvc.perform(post("/api/bookings")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isBadRequest());
 
         verify(bookingService).createBookingWithRoomSelection(eq("testuser"), eq(101L), any(), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "hotel-service", roles = "SERVICE")
+    void hasConflictingBookings_AnsweredFromIndex() throws Exception {
+        // Arrange
+        LocalDate checkIn = LocalDate.now().plusDays(1);
+        LocalDate checkOut = LocalDate.now().plusDays(3);
+        when(conflictIndex.hasConflicts(101L, checkIn, checkOut)).thenReturn(true);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/rooms/101/conflicts")
+                        .param("checkIn", checkIn.toString())
+                        .param("checkOut", checkOut.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+
+        verifyNoInteractions(bookingService);
+    }
+}
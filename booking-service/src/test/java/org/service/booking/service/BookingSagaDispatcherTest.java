@@ -0,0 +1,376 @@
+package org.service.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.service.booking.client.HotelServiceClient;
+import org.service.booking.config.OutboxProperties;
+import org.service.booking.dto.RoomReleaseRequest;
+import org.service.booking.entity.Booking;
+import org.service.booking.entity.OutboxEvent;
+import org.service.booking.exception.HotelServiceOverloadedException;
+import org.service.booking.repository.BookingRepository;
+import org.service.booking.repository.OutboxEventRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingSagaDispatcherTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private HotelServiceClient hotelServiceClient;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxProperties outboxProperties;
+    private BookingConflictIndex conflictIndex;
+    private BookingSagaDispatcher dispatcher;
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @BeforeEach
+    void setUp() {
+        outboxProperties = new OutboxProperties();
+        conflictIndex = new BookingConflictIndex(bookingRepository);
+        dispatcher = new BookingSagaDispatcher(outboxEventRepository, bookingRepository, hotelServiceClient,
+                new TransactionTemplate(transactionManager), Schedulers.immediate(), outboxProperties,
+                conflictIndex);
+
+        startDate = LocalDate.now().plusDays(1);
+        endDate = LocalDate.now().plusDays(3);
+    }
+
+    @Test
+    void dispatchBatch_HoldAndConfirm_ConfirmsBooking() {
+        // Arrange
+        Booking booking = booking(1L);
+        OutboxEvent event = event(OutboxEvent.SagaStep.HOLD, 0);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.lockRoom(1L, startDate, endDate, "corr-1")).thenReturn(Mono.just(true));
+        when(hotelServiceClient.confirmRoom(1L, startDate, endDate, "corr-1")).thenReturn(Mono.just(true));
+
+        Mono<Booking> outcome = dispatcher.awaitOutcome("corr-1");
+
+        // Act
+        int processed = dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(1, processed);
+        assertEquals(Booking.BookingStatus.CONFIRMED, booking.getStatus());
+        assertEquals(OutboxEvent.SagaStep.CONFIRM, event.getStep());
+        assertEquals(OutboxEvent.OutboxStatus.DONE, event.getStatus());
+        assertSame(booking, outcome.block());
+        assertTrue(conflictIndex.hasConflicts(1L, startDate, endDate));
+    }
+
+    @Test
+    void dispatchBatch_AutoSelect_StoresAllocatedRoom() {
+        // Arrange
+        Booking booking = booking(null);
+        OutboxEvent event = event(OutboxEvent.SagaStep.HOLD, 0);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.allocateRoom(startDate, endDate, "corr-1"))
+                .thenReturn(Mono.just(org.service.booking.dto.RoomDTO.builder().id(7L).build()));
+        when(hotelServiceClient.confirmRoom(7L, startDate, endDate, "corr-1")).thenReturn(Mono.just(true));
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(7L, booking.getRoomId());
+        assertEquals(1, conflictIndex.getActiveCount(7L));
+        assertEquals(Booking.BookingStatus.CONFIRMED, booking.getStatus());
+        verify(hotelServiceClient, never()).lockRoom(any(), any(), any(), any());
+    }
+
+    @Test
+    void dispatchBatch_HoldFailed_CancelsWithoutCompensation() {
+        // Arrange
+        Booking booking = booking(null);
+        OutboxEvent event = event(OutboxEvent.SagaStep.HOLD, 0);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.allocateRoom(startDate, endDate, "corr-1")).thenReturn(Mono.empty());
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(Booking.BookingStatus.CANCELLED, booking.getStatus());
+        assertEquals(OutboxEvent.OutboxStatus.DONE, event.getStatus());
+        verify(hotelServiceClient, never()).releaseRooms(any());
+    }
+
+    @Test
+    void dispatchBatch_HoldTransportError_SchedulesRetry() {
+        // Arrange
+        Booking booking = booking(1L);
+        OutboxEvent event = event(OutboxEvent.SagaStep.HOLD, 0);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.lockRoom(1L, startDate, endDate, "corr-1")).thenReturn(Mono.error(
+                new WebClientRequestException(new ConnectException("Connection refused"), HttpMethod.POST,
+                        URI.create("http://hotel-service/api/hotels/rooms/1/confirm-availability"), new HttpHeaders())));
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(Booking.BookingStatus.PENDING, booking.getStatus());
+        assertEquals(OutboxEvent.SagaStep.HOLD, event.getStep());
+        assertEquals(OutboxEvent.OutboxStatus.PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertTrue(event.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verify(hotelServiceClient, never()).confirmRoom(any(), any(), any(), any());
+    }
+
+    @Test
+    void dispatchBatch_HoldRejectedByLimiter_SchedulesRetry() {
+        // Arrange
+        Booking booking = booking(null);
+        OutboxEvent event = event(OutboxEvent.SagaStep.HOLD, 0);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.allocateRoom(startDate, endDate, "corr-1"))
+                .thenReturn(Mono.error(new HotelServiceOverloadedException(Duration.ofSeconds(1))));
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(Booking.BookingStatus.PENDING, booking.getStatus());
+        assertEquals(OutboxEvent.OutboxStatus.PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertTrue(event.getNextAttemptAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void dispatchBatch_ConfirmFailed_SchedulesRetry() {
+        // Arrange
+        Booking booking = booking(1L);
+        OutboxEvent event = event(OutboxEvent.SagaStep.CONFIRM, 0);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.confirmRoom(1L, startDate, endDate, "corr-1")).thenReturn(Mono.just(false));
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(Booking.BookingStatus.PENDING, booking.getStatus());
+        assertEquals(OutboxEvent.OutboxStatus.PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertTrue(event.getNextAttemptAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void dispatchBatch_ConfirmAttemptsExhausted_TurnsIntoRelease() {
+        // Arrange
+        Booking booking = booking(1L);
+        OutboxEvent event = event(OutboxEvent.SagaStep.CONFIRM, outboxProperties.getMaxAttempts() - 1);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.confirmRoom(1L, startDate, endDate, "corr-1")).thenReturn(Mono.just(false));
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(Booking.BookingStatus.CANCELLED, booking.getStatus());
+        assertEquals(OutboxEvent.SagaStep.RELEASE, event.getStep());
+        assertEquals(OutboxEvent.OutboxStatus.PENDING, event.getStatus());
+        assertEquals(0, event.getAttempts());
+        assertEquals(0, conflictIndex.getActiveCount(1L));
+    }
+
+    @Test
+    void dispatchBatch_Release_ReleasesOnlyOwnReservation() {
+        // Arrange
+        Booking booking = booking(1L);
+        booking.setStatus(Booking.BookingStatus.CANCELLED);
+        OutboxEvent event = event(OutboxEvent.SagaStep.RELEASE, 0);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.releaseRooms(any())).thenReturn(Mono.empty());
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(OutboxEvent.OutboxStatus.DONE, event.getStatus());
+        verify(hotelServiceClient).releaseRooms(List.of(RoomReleaseRequest.builder()
+                .roomId(1L)
+                .startDate(startDate)
+                .endDate(endDate)
+                .correlationId("corr-1")
+                .build()));
+    }
+
+    @Test
+    void dispatchBatch_ReleaseFailed_RetriedWithBackoff() {
+        // Arrange
+        Booking booking = booking(1L);
+        booking.setStatus(Booking.BookingStatus.CANCELLED);
+        OutboxEvent event = event(OutboxEvent.SagaStep.RELEASE, 0);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.releaseRooms(any())).thenReturn(Mono.error(new IllegalStateException("unavailable")));
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(OutboxEvent.OutboxStatus.PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertTrue(event.getNextAttemptAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void dispatchBatch_BookingCancelledBeforeConfirm_StepSkipped() {
+        // Arrange
+        Booking booking = booking(1L);
+        booking.setStatus(Booking.BookingStatus.CANCELLED);
+        OutboxEvent event = event(OutboxEvent.SagaStep.CONFIRM, 0);
+        givenClaimed(event, booking);
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(Booking.BookingStatus.CANCELLED, booking.getStatus());
+        assertEquals(OutboxEvent.OutboxStatus.DONE, event.getStatus());
+        verifyNoInteractions(hotelServiceClient);
+    }
+
+    @Test
+    void dispatchBatch_CancelledDuringAutoSelectHold_ReleasesAllocatedRoom() {
+        // Arrange
+        Booking booking = booking(null);
+        OutboxEvent event = event(OutboxEvent.SagaStep.HOLD, 0);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.allocateRoom(startDate, endDate, "corr-1"))
+                .thenReturn(Mono.just(org.service.booking.dto.RoomDTO.builder().id(7L).build()));
+        // Пользователь отменил бронирование после захвата пачки: в базе CANCELLED, в пачке ещё PENDING
+        when(bookingRepository.findStatusById(1L)).thenReturn(Optional.of(Booking.BookingStatus.CANCELLED));
+
+        Mono<Booking> outcome = dispatcher.awaitOutcome("corr-1");
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(Booking.BookingStatus.CANCELLED, booking.getStatus());
+        assertEquals(OutboxEvent.SagaStep.RELEASE, event.getStep());
+        assertEquals(OutboxEvent.OutboxStatus.PENDING, event.getStatus());
+        assertEquals(0, conflictIndex.getActiveCount(7L));
+        assertSame(booking, outcome.block());
+        verify(bookingRepository).assignRoom(eq(1L), eq(7L), any());
+        verify(bookingRepository, never()).completePending(any(), any(), any());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(hotelServiceClient, never()).confirmRoom(any(), any(), any(), any());
+    }
+
+    @Test
+    void dispatchBatch_CancelledWhileConfirming_ReleasesRoom() {
+        // Arrange
+        Booking booking = booking(1L);
+        OutboxEvent event = event(OutboxEvent.SagaStep.CONFIRM, 0);
+        givenClaimed(event, booking);
+
+        when(hotelServiceClient.confirmRoom(1L, startDate, endDate, "corr-1")).thenReturn(Mono.just(true));
+        // Отмена зафиксирована между проверкой статуса и подтверждением
+        when(bookingRepository.completePending(eq(1L), eq(Booking.BookingStatus.CONFIRMED), any())).thenReturn(0);
+
+        // Act
+        dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(Booking.BookingStatus.CANCELLED, booking.getStatus());
+        assertEquals(OutboxEvent.SagaStep.RELEASE, event.getStep());
+        assertEquals(OutboxEvent.OutboxStatus.PENDING, event.getStatus());
+        assertEquals(0, event.getAttempts());
+    }
+
+    @Test
+    void dispatchBatch_AlreadyClaimed_Skipped() {
+        // Arrange
+        OutboxEvent event = event(OutboxEvent.SagaStep.HOLD, 0);
+        when(outboxEventRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                eq(OutboxEvent.OutboxStatus.PENDING), any(), any())).thenReturn(List.of(event));
+        when(outboxEventRepository.claim(eq(event.getId()), any(), any())).thenReturn(0);
+
+        // Act
+        int processed = dispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(0, processed);
+        verifyNoInteractions(hotelServiceClient);
+    }
+
+    private void givenClaimed(OutboxEvent event, Booking booking) {
+        when(outboxEventRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                eq(OutboxEvent.OutboxStatus.PENDING), any(), any())).thenReturn(List.of(event));
+        when(outboxEventRepository.claim(eq(event.getId()), any(), any())).thenReturn(1);
+        lenient().when(outboxEventRepository.save(any(OutboxEvent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookingRepository.findAllById(List.of(booking.getId()))).thenReturn(List.of(booking));
+        lenient().when(bookingRepository.findStatusById(booking.getId())).thenReturn(Optional.of(booking.getStatus()));
+        lenient().when(bookingRepository.completePending(eq(booking.getId()), any(), any())).thenReturn(1);
+    }
+
+    private Booking booking(Long roomId) {
+        return Booking.builder()
+                .id(1L)
+                .roomId(roomId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .status(Booking.BookingStatus.PENDING)
+                .correlationId("corr-1")
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private OutboxEvent event(OutboxEvent.SagaStep step, int attempts) {
+        return OutboxEvent.builder()
+                .id(10L)
+                .bookingId(1L)
+                .step(step)
+                .status(OutboxEvent.OutboxStatus.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
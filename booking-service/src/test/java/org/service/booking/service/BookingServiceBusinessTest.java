@@ -1,18 +1,26 @@
 package org.service.booking.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.service.booking.client.HotelServiceClient;
+import org.service.booking.config.IdempotencyProperties;
+import org.service.booking.config.OutboxProperties;
 import org.service.booking.dto.RoomDTO;
 import org.service.booking.entity.Booking;
 import org.service.booking.entity.User;
 import org.service.booking.exception.RoomNotAvailableException;
 import org.service.booking.repository.BookingRepository;
+import org.service.booking.repository.OutboxEventRepository;
 import org.service.booking.repository.UserRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,6 +28,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,9 +43,27 @@ class BookingServiceBusinessTest {
     @Mock
     private HotelServiceClient hotelServiceClient;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private BookingSagaDispatcher sagaDispatcher;
+
     private BookingService bookingService;
 
+    @BeforeEach
+    void setUp() {
+        bookingService = new BookingService(bookingRepository, userRepository, hotelServiceClient,
+                new TransactionTemplate(transactionManager), Schedulers.immediate(),
+                outboxEventRepository, sagaDispatcher, new OutboxProperties(),
+                new IdempotencyStore(new IdempotencyProperties()),
+                new UserIdResolver(userRepository, 1000, Duration.ofMinutes(5)),
+                new BookingConflictIndex(bookingRepository));
+    }
+
     private User createTestUser() {
         return User.builder()
                 .id(1L)
@@ -67,24 +94,31 @@ class BookingServiceBusinessTest {
         LocalDate endDate = LocalDate.now().plusDays(3);
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(hotelServiceClient.findAvailableRooms(startDate, endDate)).thenReturn(List.of(room));
-        when(hotelServiceClient.lockRoom(1L, startDate, endDate)).thenReturn(true);
         when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
             Booking booking = invocation.getArgument(0);
             booking.setId(1L);
             return booking;
         });
+        when(sagaDispatcher.awaitOutcome(any())).thenAnswer(invocation -> Mono.just(Booking.builder()
+                .id(1L)
+                .user(user)
+                .roomId(room.getId())
+                .startDate(startDate)
+                .endDate(endDate)
+                .status(Booking.BookingStatus.CONFIRMED)
+                .correlationId(invocation.getArgument(0))
+                .build()));
 
         // Act
-        Booking result = bookingService.createBookingWithAutoSelect("testuser", startDate, endDate);
+        Booking result = bookingService.createBookingWithAutoSelect("testuser", startDate, endDate).block();
 
         // Assert
         assertNotNull(result);
         assertEquals(1L, result.getId());
         assertEquals(1L, result.getRoomId());
         assertEquals(user, result.getUser());
-        verify(hotelServiceClient).findAvailableRooms(startDate, endDate);
-        verify(hotelServiceClient).lockRoom(1L, startDate, endDate);
+        verify(sagaDispatcher).wakeUp();
+        verify(hotelServiceClient, never()).lockRoom(anyLong(), any(), any(), any());
     }
 
     @Test
@@ -95,14 +129,16 @@ class BookingServiceBusinessTest {
         LocalDate endDate = LocalDate.now().plusDays(3);
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(hotelServiceClient.findAvailableRooms(startDate, endDate)).thenReturn(List.of());
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(sagaDispatcher.awaitOutcome(any())).thenReturn(Mono.just(Booking.builder()
+                .status(Booking.BookingStatus.CANCELLED)
+                .build()));
 
         // Act & Assert
         assertThrows(RoomNotAvailableException.class, () -> {
-            bookingService.createBookingWithAutoSelect("testuser", startDate, endDate);
+            bookingService.createBookingWithAutoSelect("testuser", startDate, endDate).block();
         });
 
-        verify(hotelServiceClient, never()).lockRoom(anyLong(), any(), any());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(hotelServiceClient, never()).lockRoom(anyLong(), any(), any(), any());
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,31 @@
 package org.service.booking.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.service.booking.client.HotelServiceClient;
+import org.service.booking.config.IdempotencyProperties;
+import org.service.booking.config.OutboxProperties;
+import org.service.booking.dto.BookingPage;
 import org.service.booking.dto.RoomDTO;
 import org.service.booking.entity.Booking;
+import org.service.booking.entity.OutboxEvent;
 import org.service.booking.entity.User;
 import org.service.booking.exception.BookingNotFoundException;
 import org.service.booking.exception.RoomNotAvailableException;
 import org.service.booking.repository.BookingRepository;
+import org.service.booking.repository.OutboxEventRepository;
 import org.service.booking.repository.UserRepository;
+import org.service.booking.util.CorrelationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,6 +33,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,14 +48,33 @@ class BookingServiceTest {
     @Mock
     private HotelServiceClient hotelServiceClient;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private BookingSagaDispatcher sagaDispatcher;
+
+    private OutboxProperties outboxProperties;
     private BookingService bookingService;
 
     private User testUser;
     private RoomDTO testRoom;
+    private Booking savedBooking;
+    private Booking.BookingStatus statusOnSave;
 
     @BeforeEach
     void setUp() {
+        outboxProperties = new OutboxProperties();
+        bookingService = new BookingService(bookingRepository, userRepository, hotelServiceClient,
+                new TransactionTemplate(transactionManager), Schedulers.immediate(),
+                outboxEventRepository, sagaDispatcher, outboxProperties,
+                new IdempotencyStore(new IdempotencyProperties()),
+                new UserIdResolver(userRepository, 1000, Duration.ofMinutes(5)),
+                new BookingConflictIndex(bookingRepository));
+
         testUser = User.builder()
                 .id(1L)
                 .username("testuser")
@@ -62,6 +93,11 @@ class BookingServiceTest {
                 .build();
     }
 
+    @AfterEach
+    void tearDown() {
+        CorrelationContext.removeCorrelationId();
+    }
+
     @Test
     void createBookingWithRoomSelection_Success() {
         // Arrange
@@ -69,16 +105,12 @@ class BookingServiceTest {
         LocalDate endDate = LocalDate.now().plusDays(3);
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(hotelServiceClient.checkRoomAvailability(1L, startDate, endDate)).thenReturn(true);
-        when(hotelServiceClient.lockRoom(1L, startDate, endDate)).thenReturn(true);
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
-            Booking booking = invocation.getArgument(0);
-            booking.setId(1L);
-            return booking;
-        });
+        when(hotelServiceClient.checkRoomAvailability(1L, startDate, endDate)).thenReturn(Mono.just(true));
+        stubBookingSave();
+        sagaCompletesWith(Booking.BookingStatus.CONFIRMED, 1L);
 
         // Act
-        Booking result = bookingService.createBookingWithRoomSelection("testuser", 1L, startDate, endDate);
+        Booking result = bookingService.createBookingWithRoomSelection("testuser", 1L, startDate, endDate).block();
 
         // Assert
         assertNotNull(result);
@@ -87,8 +119,52 @@ class BookingServiceTest {
         assertEquals(Booking.BookingStatus.CONFIRMED, result.getStatus());
 
         verify(hotelServiceClient).checkRoomAvailability(1L, startDate, endDate);
-        verify(hotelServiceClient).lockRoom(1L, startDate, endDate);
-        verify(bookingRepository).save(any(Booking.class));
+        verify(outboxEventRepository).save(argThat(event -> event.getStep() == OutboxEvent.SagaStep.HOLD
+                && event.getBookingId().equals(1L)));
+        verify(sagaDispatcher).wakeUp();
+        // Удалённые шаги саги выполняет диспетчер, а не запрос
+        verify(hotelServiceClient, never()).lockRoom(anyLong(), any(), any(), any());
+        verify(hotelServiceClient, never()).confirmRoom(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void createBookingWithRoomSelection_SagaCancelled_ThrowsException() {
+        // Arrange
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = LocalDate.now().plusDays(3);
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(hotelServiceClient.checkRoomAvailability(1L, startDate, endDate)).thenReturn(Mono.just(true));
+        stubBookingSave();
+        sagaCompletesWith(Booking.BookingStatus.CANCELLED, 1L);
+
+        // Act & Assert
+        assertThrows(RoomNotAvailableException.class, () ->
+                bookingService.createBookingWithRoomSelection("testuser", 1L, startDate, endDate).block());
+
+        verify(sagaDispatcher).forget(any());
+    }
+
+    @Test
+    void createBookingWithRoomSelection_SagaTimeout_ReturnsPending() {
+        // Arrange
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = LocalDate.now().plusDays(3);
+        outboxProperties.setAwaitTimeout(Duration.ofMillis(50));
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(hotelServiceClient.checkRoomAvailability(1L, startDate, endDate)).thenReturn(Mono.just(true));
+        stubBookingSave();
+        when(sagaDispatcher.awaitOutcome(any())).thenReturn(Mono.never());
+
+        // Act
+        Booking result = bookingService.createBookingWithRoomSelection("testuser", 1L, startDate, endDate).block();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(Booking.BookingStatus.PENDING, result.getStatus());
+        // doFinally выполняется на потоке таймаута уже после того, как block() вернул результат
+        verify(sagaDispatcher, timeout(1000)).forget(result.getCorrelationId());
     }
 
     @Test
@@ -98,15 +174,15 @@ class BookingServiceTest {
         LocalDate endDate = LocalDate.now().plusDays(3);
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(hotelServiceClient.checkRoomAvailability(1L, startDate, endDate)).thenReturn(false);
+        when(hotelServiceClient.checkRoomAvailability(1L, startDate, endDate)).thenReturn(Mono.just(false));
 
         // Act & Assert
         assertThrows(RoomNotAvailableException.class, () -> {
-            bookingService.createBookingWithRoomSelection("testuser", 1L, startDate, endDate);
+            bookingService.createBookingWithRoomSelection("testuser", 1L, startDate, endDate).block();
         });
 
-        verify(hotelServiceClient, never()).lockRoom(anyLong(), any(), any());
         verify(bookingRepository, never()).save(any(Booking.class));
+        verify(outboxEventRepository, never()).save(any(OutboxEvent.class));
     }
 
     @Test
@@ -114,27 +190,24 @@ class BookingServiceTest {
         // Arrange
         LocalDate startDate = LocalDate.now().plusDays(1);
         LocalDate endDate = LocalDate.now().plusDays(3);
-        List<RoomDTO> availableRooms = List.of(testRoom);
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(hotelServiceClient.findAvailableRooms(startDate, endDate)).thenReturn(availableRooms);
-        when(hotelServiceClient.lockRoom(1L, startDate, endDate)).thenReturn(true);
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
-            Booking booking = invocation.getArgument(0);
-            booking.setId(1L);
-            return booking;
-        });
+        stubBookingSave();
+        sagaCompletesWith(Booking.BookingStatus.CONFIRMED, testRoom.getId());
 
         // Act
-        Booking result = bookingService.createBookingWithAutoSelect("testuser", startDate, endDate);
+        Booking result = bookingService.createBookingWithAutoSelect("testuser", startDate, endDate).block();
 
         // Assert
         assertNotNull(result);
         assertEquals(1L, result.getRoomId());
         assertEquals(testUser, result.getUser());
 
-        verify(hotelServiceClient).findAvailableRooms(startDate, endDate);
-        verify(hotelServiceClient).lockRoom(1L, startDate, endDate);
+        // Номер на момент записи ещё не выбран; сага меняет тот же объект позже
+        assertEquals(Booking.BookingStatus.PENDING, statusOnSave);
+        verify(bookingRepository).save(any(Booking.class));
+        verify(outboxEventRepository).save(any(OutboxEvent.class));
+        verify(hotelServiceClient, never()).allocateRoom(any(), any(), any());
     }
 
     @Test
@@ -144,15 +217,123 @@ class BookingServiceTest {
         LocalDate endDate = LocalDate.now().plusDays(3);
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(hotelServiceClient.findAvailableRooms(startDate, endDate)).thenReturn(List.of());
+        stubBookingSave();
+        sagaCompletesWith(Booking.BookingStatus.CANCELLED, null);
 
         // Act & Assert
         assertThrows(RoomNotAvailableException.class, () -> {
-            bookingService.createBookingWithAutoSelect("testuser", startDate, endDate);
+            bookingService.createBookingWithAutoSelect("testuser", startDate, endDate).block();
         });
 
-        verify(hotelServiceClient, never()).lockRoom(anyLong(), any(), any());
+        verify(hotelServiceClient, never()).lockRoom(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void createBooking_DuplicateCorrelationId_ReturnsExistingBooking() {
+        // Arrange
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = LocalDate.now().plusDays(3);
+        Booking existing = Booking.builder()
+                .id(5L)
+                .user(testUser)
+                .roomId(1L)
+                .startDate(startDate)
+                .endDate(endDate)
+                .status(Booking.BookingStatus.CONFIRMED)
+                .correlationId("corr-dup")
+                .build();
+
+        CorrelationContext.setCorrelationId("corr-dup");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(bookingRepository.findByCorrelationId("corr-dup")).thenReturn(Optional.of(existing));
+
+        // Act
+        Booking first = bookingService.createBookingWithRoomSelection("testuser", 1L, startDate, endDate).block();
+        Booking second = bookingService.createBookingWithRoomSelection("testuser", 1L, startDate, endDate).block();
+
+        // Assert
+        assertSame(existing, first);
+        assertSame(existing, second);
+        // Второй повтор отдан из кэша, без обращения к БД
+        verify(bookingRepository, times(1)).findByCorrelationId("corr-dup");
+        verify(userRepository, times(1)).findByUsername("testuser");
         verify(bookingRepository, never()).save(any(Booking.class));
+        verify(hotelServiceClient, never()).checkRoomAvailability(anyLong(), any(), any());
+    }
+
+    @Test
+    void createGroupBooking_HoldsAllRoomsInOneCall() {
+        // Arrange
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = LocalDate.now().plusDays(3);
+        outboxProperties.setAwaitTimeout(Duration.ofMillis(50));
+        CorrelationContext.setCorrelationId("corr-group");
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+        when(hotelServiceClient.holdRooms(eq(startDate), eq(endDate), any())).thenReturn(Mono.just(List.of(
+                RoomDTO.builder().id(1L).build(),
+                RoomDTO.builder().id(2L).build(),
+                RoomDTO.builder().id(7L).build())));
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            for (int i = 0; i < bookings.size(); i++) {
+                bookings.get(i).setId(10L + i);
+            }
+            return bookings;
+        });
+        when(sagaDispatcher.awaitOutcome(any())).thenReturn(Mono.never());
+
+        // Act
+        List<Booking> result = bookingService.createGroupBooking("testuser", List.of(1L, 2L), 1, startDate, endDate).block();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(List.of(1L, 2L, 7L), result.stream().map(Booking::getRoomId).toList());
+        assertEquals(List.of("corr-group:0", "corr-group:1", "corr-group:2"),
+                result.stream().map(Booking::getCorrelationId).toList());
+        assertTrue(result.stream().allMatch(booking -> booking.getStatus() == Booking.BookingStatus.PENDING));
+
+        verify(hotelServiceClient).holdRooms(eq(startDate), eq(endDate), argThat(items -> items.size() == 3
+                && items.get(0).getRoomId().equals(1L) && items.get(2).getRoomId() == null));
+        verify(outboxEventRepository).saveAll(argThat(events -> {
+            List<OutboxEvent> list = new java.util.ArrayList<>();
+            events.forEach(list::add);
+            return list.size() == 3 && list.stream().allMatch(event -> event.getStep() == OutboxEvent.SagaStep.CONFIRM);
+        }));
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(hotelServiceClient, never()).lockRoom(anyLong(), any(), any(), any());
+        // doFinally выполняется на потоке таймаута
+        verify(sagaDispatcher, timeout(1000)).forget("corr-group:2");
+    }
+
+    @Test
+    void createGroupBooking_HoldFails_NothingSaved() {
+        // Arrange
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = LocalDate.now().plusDays(3);
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(hotelServiceClient.holdRooms(eq(startDate), eq(endDate), any())).thenReturn(Mono.empty());
+        when(sagaDispatcher.awaitOutcome(any())).thenReturn(Mono.never());
+
+        // Act & Assert
+        assertThrows(RoomNotAvailableException.class, () ->
+                bookingService.createGroupBooking("testuser", List.of(1L, 2L), null, startDate, endDate).block());
+
+        verify(bookingRepository, never()).saveAll(anyList());
+        verify(outboxEventRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createGroupBooking_DuplicateRooms_ThrowsException() {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = LocalDate.now().plusDays(3);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                bookingService.createGroupBooking("testuser", List.of(1L, 1L), 0, startDate, endDate).block());
+
+        verifyNoInteractions(hotelServiceClient);
     }
 
     @Test
@@ -165,20 +346,26 @@ class BookingServiceTest {
                 .roomId(1L)
                 .startDate(LocalDate.now().plusDays(2))
                 .endDate(LocalDate.now().plusDays(4))
-                .status(Booking.BookingStatus.CONFIRMED)
+                .status(Booking.BookingStatus.PENDING)
+                .correlationId("corr-1")
                 .createdAt(LocalDateTime.now())
                 .build();
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(bookingRepository.findByIdAndUser(bookingId, testUser)).thenReturn(Optional.of(booking));
+        when(bookingRepository.findByIdAndUserId(bookingId, 1L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.save(booking)).thenReturn(booking);
 
         // Act
-        bookingService.cancelBooking(bookingId, "testuser");
+        bookingService.cancelBooking(bookingId, "testuser").block();
 
         // Assert
         assertEquals(Booking.BookingStatus.CANCELLED, booking.getStatus());
         verify(bookingRepository).save(booking);
-        verify(hotelServiceClient).releaseRoom(1L, booking.getStartDate(), booking.getEndDate());
+        // Номер снимается в фоне: отмена пишет шаг RELEASE и не ждёт hotel-service
+        verify(outboxEventRepository).save(argThat(event -> event.getStep() == OutboxEvent.SagaStep.RELEASE
+                && event.getBookingId().equals(bookingId)));
+        verify(sagaDispatcher).wakeUp();
+        verifyNoInteractions(hotelServiceClient);
     }
 
     @Test
@@ -186,34 +373,73 @@ class BookingServiceTest {
         // Arrange
         Long bookingId = 1L;
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(bookingRepository.findByIdAndUser(bookingId, testUser)).thenReturn(Optional.empty());
+        when(bookingRepository.findByIdAndUserId(bookingId, 1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(BookingNotFoundException.class, () -> {
-            bookingService.cancelBooking(bookingId, "testuser");
+            bookingService.cancelBooking(bookingId, "testuser").block();
         });
 
         verify(bookingRepository, never()).save(any(Booking.class));
-        verify(hotelServiceClient, never()).releaseRoom(anyLong(), any(), any());
+        verify(outboxEventRepository, never()).save(any(OutboxEvent.class));
     }
 
     @Test
     void getUserBookings_Success() {
         // Arrange
         List<Booking> expectedBookings = List.of(
-                Booking.builder().id(1L).user(testUser).build(),
-                Booking.builder().id(2L).user(testUser).build()
+                Booking.builder().id(2L).user(testUser).createdAt(LocalDateTime.now()).build(),
+                Booking.builder().id(1L).user(testUser).createdAt(LocalDateTime.now().minusDays(1)).build()
         );
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(bookingRepository.findByUserOrderByCreatedAtDesc(testUser)).thenReturn(expectedBookings);
+        when(bookingRepository.findPageByUserId(eq(1L), any())).thenReturn(expectedBookings);
 
         // Act
-        List<Booking> result = bookingService.getUserBookings("testuser");
+        BookingPage result = bookingService.getUserBookings("testuser", null, 20, false);
 
         // Assert
-        assertEquals(2, result.size());
-        verify(bookingRepository).findByUserOrderByCreatedAtDesc(testUser);
+        assertEquals(2, result.getBookings().size());
+        assertNull(result.getNextCursor());
+        assertNull(result.getTotalCount());
+        verify(bookingRepository, never()).countByUserId(any());
+    }
+
+    @Test
+    void getUserBookings_FullPage_ReturnsCursorForNextPage() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> found = List.of(
+                Booking.builder().id(3L).user(testUser).createdAt(now).build(),
+                Booking.builder().id(2L).user(testUser).createdAt(now.minusHours(1)).build(),
+                Booking.builder().id(1L).user(testUser).createdAt(now.minusHours(2)).build()
+        );
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(bookingRepository.findPageByUserId(eq(1L), any())).thenReturn(found);
+        when(bookingRepository.findPageByUserIdAfter(eq(1L), eq(now.minusHours(1)), eq(2L), any()))
+                .thenReturn(List.of(found.get(2)));
+        when(bookingRepository.countByUserId(1L)).thenReturn(3L);
+
+        // Act
+        BookingPage first = bookingService.getUserBookings("testuser", null, 2, true);
+        BookingPage second = bookingService.getUserBookings("testuser", first.getNextCursor(), 2, false);
+
+        // Assert
+        assertEquals(List.of(3L, 2L), first.getBookings().stream().map(Booking::getId).toList());
+        assertNotNull(first.getNextCursor());
+        assertEquals(3L, first.getTotalCount());
+
+        assertEquals(List.of(1L), second.getBookings().stream().map(Booking::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getUserBookings_InvalidCursor_ThrowsException() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                bookingService.getUserBookings("testuser", "not-a-cursor", 20, false));
     }
 
     @Test
@@ -221,19 +447,41 @@ class BookingServiceTest {
         // Past start date
         assertThrows(IllegalArgumentException.class, () ->
                 bookingService.createBookingWithRoomSelection("testuser", 1L,
-                        LocalDate.now().minusDays(1), LocalDate.now().plusDays(1))
+                        LocalDate.now().minusDays(1), LocalDate.now().plusDays(1)).block()
         );
 
         // End date before start date
         assertThrows(IllegalArgumentException.class, () ->
                 bookingService.createBookingWithRoomSelection("testuser", 1L,
-                        LocalDate.now().plusDays(3), LocalDate.now().plusDays(1))
+                        LocalDate.now().plusDays(3), LocalDate.now().plusDays(1)).block()
         );
 
         // Booking too far in advance
         assertThrows(IllegalArgumentException.class, () ->
                 bookingService.createBookingWithRoomSelection("testuser", 1L,
-                        LocalDate.now().plusYears(2), LocalDate.now().plusYears(2).plusDays(1))
+                        LocalDate.now().plusYears(2), LocalDate.now().plusYears(2).plusDays(1)).block()
         );
     }
-}
\ No newline at end of file
+
+    private void stubBookingSave() {
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
+            Booking booking = invocation.getArgument(0);
+            booking.setId(1L);
+            savedBooking = booking;
+            statusOnSave = booking.getStatus();
+            return booking;
+        });
+    }
+
+    /**
+     * Диспетчер саги сообщает исход для сохранённого бронирования
+     */
+    private void sagaCompletesWith(Booking.BookingStatus status, Long roomId) {
+        when(sagaDispatcher.awaitOutcome(any())).thenReturn(Mono.fromCallable(() -> {
+            savedBooking.setStatus(status);
+            savedBooking.setRoomId(roomId);
+            return savedBooking;
+        }));
+    }
+}
@@ -0,0 +1,99 @@
+package org.service.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.service.booking.config.IdempotencyProperties;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(new IdempotencyProperties());
+    }
+
+    @Test
+    void execute_SameKey_RunsActionOnce() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String first = store.execute("key", () -> Mono.fromCallable(() -> "result-" + calls.incrementAndGet())).block();
+        String second = store.execute("key", () -> Mono.fromCallable(() -> "result-" + calls.incrementAndGet())).block();
+
+        assertEquals("result-1", first);
+        assertEquals("result-1", second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_DifferentKeys_RunIndependently() {
+        AtomicInteger calls = new AtomicInteger();
+
+        store.execute("a", () -> Mono.fromCallable(calls::incrementAndGet)).block();
+        store.execute("b", () -> Mono.fromCallable(calls::incrementAndGet)).block();
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_Error_IsNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> store.execute("key", () -> {
+            calls.incrementAndGet();
+            return Mono.<String>error(new IllegalStateException("boom"));
+        }).block());
+
+        String retried = store.execute("key", () -> Mono.fromCallable(() -> "ok-" + calls.incrementAndGet())).block();
+
+        assertEquals("ok-2", retried);
+    }
+
+    @Test
+    void execute_LateErrorOfEvictedAttempt_KeepsRetryResult() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> failed = Sinks.one();
+        Sinks.One<String> retry = Sinks.one();
+
+        store.execute("key", failed::asMono).subscribe(value -> { }, e -> { });
+        store.evict("key");
+        Mono<String> retried = store.execute("key", retry::asMono);
+        retried.subscribe();
+
+        // Ошибка первой попытки приходит, когда под ключом уже лежит повтор
+        failed.tryEmitError(new IllegalStateException("boom"));
+        retry.tryEmitValue("ok");
+
+        String duplicate = store.execute("key", () -> Mono.fromCallable(() -> "new-" + calls.incrementAndGet())).block();
+
+        assertEquals("ok", duplicate);
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void execute_EmptyResult_IsCached() {
+        AtomicInteger calls = new AtomicInteger();
+
+        store.execute("key", () -> Mono.fromRunnable(calls::incrementAndGet)).block();
+        store.execute("key", () -> Mono.fromRunnable(calls::incrementAndGet)).block();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void evict_RunsActionAgain() {
+        AtomicInteger calls = new AtomicInteger();
+
+        store.execute("key", () -> Mono.fromCallable(calls::incrementAndGet)).block();
+        store.evict("key");
+        store.execute("key", () -> Mono.fromCallable(calls::incrementAndGet)).block();
+
+        assertEquals(2, calls.get());
+    }
+}
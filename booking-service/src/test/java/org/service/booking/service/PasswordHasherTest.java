@@ -0,0 +1,95 @@
+package org.service.booking.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.service.booking.config.PasswordHashingProperties;
+import org.service.booking.exception.PasswordHashingRejectedException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        if (hasher != null) {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_RunOnPoolAndRecordLatency() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(4), properties(1, 4, 4), meterRegistry);
+
+        String hash = hasher.encode("secret");
+
+        assertTrue(hasher.matches("secret", hash));
+        assertFalse(hasher.matches("wrong", hash));
+        assertEquals(1, meterRegistry.get("booking.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("booking.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void needsRehash_WeakerHash_ReturnsTrue() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(6), properties(1, 4, 6), meterRegistry);
+
+        assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("secret")));
+        assertFalse(hasher.needsRehash(hasher.encode("secret")));
+    }
+
+    @Test
+    void encode_QueueFull_RejectsImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = mock(PasswordEncoder.class);
+        when(blockingEncoder.encode(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        hasher = new PasswordHasher(blockingEncoder, properties(1, 1, 4), meterRegistry);
+
+        // Один запрос занимает поток, второй - единственное место в очереди
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("b"));
+        awaitQueueDepth(1);
+
+        PasswordHashingRejectedException e = assertThrows(PasswordHashingRejectedException.class,
+                () -> hasher.encode("c"));
+        assertEquals(1, e.getRetryAfter().toSeconds());
+        assertEquals(1.0, meterRegistry.get("booking.password.hash.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("booking.password.hash.queue").gauge().value() < depth) {
+            assertTrue(System.nanoTime() < deadline, "Request was not queued");
+            Thread.sleep(10);
+        }
+    }
+
+    private PasswordHashingProperties properties(int threads, int queueCapacity, int strength) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setStrength(strength);
+        return properties;
+    }
+}
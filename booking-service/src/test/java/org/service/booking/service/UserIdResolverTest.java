@@ -0,0 +1,97 @@
+package org.service.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.service.booking.config.UserPrincipal;
+import org.service.booking.entity.User;
+import org.service.booking.repository.UserRepository;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserIdResolverTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserIdResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new UserIdResolver(userRepository, 100, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void resolve_FromTokenClaims_WithoutQuery() {
+        UserPrincipal principal = new UserPrincipal(7L, "testuser", List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        assertEquals(7L, resolver.resolve("testuser"));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void resolve_CachesQueriedId() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(User.builder().id(3L).build()));
+
+        assertEquals(3L, resolver.resolve("testuser"));
+        assertEquals(3L, resolver.resolve("testuser"));
+
+        verify(userRepository, times(1)).findByUsername("testuser");
+    }
+
+    @Test
+    void evict_QueriesAgain() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(User.builder().id(3L).build()));
+
+        resolver.resolve("testuser");
+        resolver.evict("testuser");
+        resolver.resolve("testuser");
+
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+
+    @Test
+    void evict_InTransaction_EvictsAgainAfterCommit() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(User.builder().id(3L).build()));
+        TransactionSynchronizationManager.initSynchronization();
+
+        resolver.evict("testuser");
+        // Конкурентный запрос до коммита снова кэширует старую строку
+        resolver.resolve("testuser");
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        resolver.resolve("testuser");
+
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+
+    @Test
+    void resolve_UnknownUser_ThrowsException() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> resolver.resolve("ghost"));
+    }
+}
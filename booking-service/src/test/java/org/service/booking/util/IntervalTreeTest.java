@@ -0,0 +1,77 @@
+package org.service.booking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    @Test
+    void overlaps_HalfOpenIntervals() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(10, 13, 1L);
+
+        assertTrue(tree.overlaps(12, 14));
+        assertTrue(tree.overlaps(9, 11));
+        assertTrue(tree.overlaps(11, 12));
+        // Выезд в день заезда следующего гостя - не конфликт
+        assertFalse(tree.overlaps(13, 15));
+        assertFalse(tree.overlaps(8, 10));
+    }
+
+    @Test
+    void remove_DropsInterval() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(10, 13, 1L);
+        tree.add(10, 12, 2L);
+
+        assertTrue(tree.remove(10, 1L));
+        assertFalse(tree.remove(10, 1L));
+
+        assertEquals(1, tree.size());
+        assertTrue(tree.overlaps(11, 12));
+        assertFalse(tree.overlaps(12, 13));
+    }
+
+    @Test
+    void add_SameKey_ReplacesInterval() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(10, 13, 1L);
+        tree.add(10, 11, 1L);
+
+        assertEquals(1, tree.size());
+        assertFalse(tree.overlaps(12, 13));
+    }
+
+    @Test
+    void overlaps_MatchesLinearScan() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        Map<Long, long[]> intervals = new HashMap<>();
+
+        for (int i = 0; i < 5000; i++) {
+            long id = random.nextInt(200);
+            long start = random.nextInt(365);
+            long end = start + 1 + random.nextInt(14);
+
+            if (random.nextBoolean()) {
+                long[] previous = intervals.put(id, new long[]{start, end});
+                if (previous != null) {
+                    tree.remove(previous[0], id);
+                }
+                tree.add(start, end, id);
+            } else {
+                long[] previous = intervals.remove(id);
+                assertEquals(previous != null, previous != null && tree.remove(previous[0], id));
+            }
+
+            boolean expected = intervals.values().stream().anyMatch(interval -> interval[0] < end && interval[1] > start);
+            assertEquals(expected, tree.overlaps(start, end));
+            assertEquals(intervals.size(), tree.size());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.service.common.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Адаптивный лимит одновременных запросов к зависимости (градиентный алгоритм,
+ * как Gradient2 в Netflix concurrency-limits). Долгосрочная задержка сравнивается с текущей:
+ * пока они близки, лимит растёт на sqrt(limit); когда задержка растёт из-за очереди,
+ * лимит уменьшается пропорционально. Перегрузка зависимости (таймаут, 503)
+ * уменьшает лимит мультипликативно. Запросы сверх лимита отклоняются сразу.
+ * Используется клиентом hotel-service в booking-service и фильтром маршрутов api-gateway.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // Сколько замеров усредняет долгосрочная задержка
+    private static final int LONG_WINDOW = 600;
+    // Доля нового значения при пересчёте лимита
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile double limit;
+    private double longRttNanos;
+
+    /**
+     * @param rttTolerance во сколько раз задержка может превысить долгосрочную, прежде чем лимит начнёт снижаться
+     * @param backoffRatio множитель лимита при перегрузке зависимости
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double rttTolerance, double backoffRatio) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 0 < min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.backoffRatio = backoffRatio;
+        this.limit = clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Занять место под запрос.
+     *
+     * @return разрешение, которое нужно завершить ровно одним из методов, или null, если лимит исчерпан
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime(), current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Сколько запросов отклонено из-за лимита
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        longRttNanos = longRttNanos == 0
+                ? rttNanos
+                : longRttNanos + (rttNanos - longRttNanos) / LONG_WINDOW;
+
+        // Нагрузка далеко от лимита: задержка ничего не говорит о том, мал ли он
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+
+        double gradient = clamp(rttTolerance * longRttNanos / Math.max(rttNanos, 1), 0.5, 1.0);
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - SMOOTHING) + target * SMOOTHING, minLimit, maxLimit);
+    }
+
+    private synchronized void onOverload() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public final class Permit {
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Ответ получен; его задержка участвует в расчёте лимита
+         */
+        public void onSuccess() {
+            if (release()) {
+                onSample(System.nanoTime() - startNanos, inFlightAtStart);
+            }
+        }
+
+        /**
+         * Зависимость перегружена (таймаут, 503, обрыв соединения)
+         */
+        public void onDropped() {
+            if (release()) {
+                onOverload();
+            }
+        }
+
+        /**
+         * Запрос отменён или завершился без информации о нагрузке
+         */
+        public void onIgnore() {
+            release();
+        }
+
+        private boolean release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.service.common.util;
+
+import lombok.Getter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Пользователь из заголовка X-Internal-Principal, который gateway выставляет после проверки JWT.
+ * Тем же заголовком с ролью {@link #SERVICE_ROLE} сервисы подписывают собственные вызовы друг друга.
+ * Формат: base64url(username).userId.base64url(role).exp.base64url(HMAC-SHA256).
+ */
+@Getter
+public final class InternalPrincipal {
+
+    public static final String HEADER = "X-Internal-Principal";
+    public static final String SERVICE_ROLE = "SERVICE";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final String username;
+    private final Long userId;
+    private final String role;
+
+    private InternalPrincipal(String username, Long userId, String role) {
+        this.username = username;
+        this.userId = userId;
+        this.role = role;
+    }
+
+    public static String sign(String username, Long userId, String role, long expiresAtSeconds, byte[] key) {
+        String payload = encode(username)
+                + "." + (userId != null ? userId : "")
+                + "." + encode(role)
+                + "." + expiresAtSeconds;
+        return payload + "." + ENCODER.encodeToString(hmac(payload, key));
+    }
+
+    /**
+     * Проверить подпись и срок заголовка
+     *
+     * @return null, если заголовок подделан, повреждён или истёк
+     */
+    public static InternalPrincipal verify(String header, byte[] key) {
+        String[] parts = header.split("\\.", -1);
+        if (parts.length != 5) {
+            return null;
+        }
+
+        try {
+            String payload = header.substring(0, header.lastIndexOf('.'));
+            byte[] expected = hmac(payload, key);
+            if (!MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(parts[4]))) {
+                return null;
+            }
+
+            if (Long.parseLong(parts[3]) < Instant.now().getEpochSecond()) {
+                return null;
+            }
+
+            String username = decode(parts[0]);
+            if (username == null) {
+                return null;
+            }
+            return new InternalPrincipal(username, parts[1].isEmpty() ? null : Long.valueOf(parts[1]), decode(parts[2]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String encode(String value) {
+        return value != null ? ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8)) : "";
+    }
+
+    private static String decode(String value) {
+        return value.isEmpty() ? null : new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] hmac(String payload, byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot compute internal principal signature", e);
+        }
+    }
+}
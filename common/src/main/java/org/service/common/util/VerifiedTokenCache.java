@@ -0,0 +1,75 @@
+package org.service.common.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.function.Function;
+
+/**
+ * Кэш результатов проверки токенов (claims JWT) по SHA-256 токена, чтобы подпись
+ * проверялась один раз за время жизни токена. Запись живёт до exp токена, но не дольше maxTtl;
+ * сам токен в памяти не хранится.
+ *
+ * @param <V> результат проверки
+ */
+public final class VerifiedTokenCache<V> {
+
+    private final Cache<String, V> cache;
+
+    /**
+     * @param expiration exp из результата проверки, null - без срока
+     */
+    public VerifiedTokenCache(long maxSize, Duration maxTtl, Function<V, Date> expiration) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, V>() {
+                    @Override
+                    public long expireAfterCreate(String digest, V value, long currentTime) {
+                        return timeToLive(expiration.apply(value), maxTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, V value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, V value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Результат проверки токена из кэша или от {@code verifier}.
+     * Исключение verifier пробрасывается, невалидный токен не кэшируется.
+     */
+    public V get(String token, Function<String, V> verifier) {
+        return cache.get(digest(token), digest -> verifier.apply(token));
+    }
+
+    private static Duration timeToLive(Date expiration, Duration maxTtl) {
+        if (expiration == null) {
+            return maxTtl;
+        }
+        Duration left = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis());
+        return left.isNegative() ? Duration.ZERO : (left.compareTo(maxTtl) < 0 ? left : maxTtl);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
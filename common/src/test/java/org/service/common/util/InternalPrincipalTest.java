@@ -0,0 +1,67 @@
+package org.service.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternalPrincipalTest {
+
+    private static final byte[] KEY = "internalKey".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void verify_SignedByGateway_ReturnsPrincipal() throws Exception {
+        String header = sign("alice", "7", "USER", Instant.now().getEpochSecond() + 60, KEY);
+
+        InternalPrincipal principal = InternalPrincipal.verify(header, KEY);
+
+        assertNotNull(principal);
+        assertEquals("alice", principal.getUsername());
+        assertEquals(7L, principal.getUserId());
+        assertEquals("USER", principal.getRole());
+    }
+
+    @Test
+    void verify_TamperedOrExpired_ReturnsNull() throws Exception {
+        long exp = Instant.now().getEpochSecond() + 60;
+        String header = sign("alice", "7", "USER", exp, KEY);
+
+        // Подменён userId
+        assertNull(InternalPrincipal.verify(header.replace(".7.", ".8."), KEY));
+        // Чужой ключ
+        assertNull(InternalPrincipal.verify(header, "otherKey".getBytes(StandardCharsets.UTF_8)));
+        // Срок истёк
+        assertNull(InternalPrincipal.verify(sign("alice", "7", "USER", exp - 120, KEY), KEY));
+        assertNull(InternalPrincipal.verify("not-a-principal", KEY));
+    }
+
+    @Test
+    void sign_ServicePrincipal_VerifiedWithSameKey() {
+        String header = InternalPrincipal.sign("booking-service", null, InternalPrincipal.SERVICE_ROLE,
+                Instant.now().getEpochSecond() + 60, KEY);
+
+        InternalPrincipal principal = InternalPrincipal.verify(header, KEY);
+
+        assertNotNull(principal);
+        assertEquals("booking-service", principal.getUsername());
+        assertNull(principal.getUserId());
+        assertEquals(InternalPrincipal.SERVICE_ROLE, principal.getRole());
+    }
+
+    private String sign(String username, String userId, String role, long exp, byte[] key) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = encoder.encodeToString(username.getBytes(StandardCharsets.UTF_8))
+                + "." + userId
+                + "." + encoder.encodeToString(role.getBytes(StandardCharsets.UTF_8))
+                + "." + exp;
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return payload + "." + encoder.encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+}
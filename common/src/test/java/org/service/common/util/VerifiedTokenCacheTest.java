@@ -0,0 +1,52 @@
+package org.service.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private final VerifiedTokenCache<Date> cache = new VerifiedTokenCache<>(100, Duration.ofHours(1), exp -> exp);
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @Test
+    void get_SameToken_VerifiedOnce() {
+        Function<String, Date> verifier = verifier(new Date(System.currentTimeMillis() + 60_000));
+
+        Date first = cache.get("token", verifier);
+        Date second = cache.get("token", verifier);
+
+        assertSame(first, second);
+        assertEquals(1, verifications.get());
+        cache.get("other", verifier);
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void get_ExpiredOrInvalid_NotCached() {
+        Function<String, Date> expired = verifier(new Date(System.currentTimeMillis() - 1_000));
+        Function<String, Date> invalid = token -> {
+            verifications.incrementAndGet();
+            throw new IllegalArgumentException("bad signature");
+        };
+
+        cache.get("expired", expired);
+        cache.get("expired", expired);
+        assertThrows(IllegalArgumentException.class, () -> cache.get("forged", invalid));
+        assertThrows(IllegalArgumentException.class, () -> cache.get("forged", invalid));
+
+        assertEquals(4, verifications.get());
+    }
+
+    private Function<String, Date> verifier(Date expiration) {
+        return token -> {
+            verifications.incrementAndGet();
+            return expiration;
+        };
+    }
+}
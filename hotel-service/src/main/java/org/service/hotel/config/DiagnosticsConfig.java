@@ -0,0 +1,14 @@
+package org.service.hotel.config;
+
+import org.service.common.config.VirtualThreadPinningMonitor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Подключает общий монитор закрепления виртуальных потоков из модуля common.
+ * Вынесен из класса приложения, чтобы срезы @DataJpaTest не требовали MeterRegistry.
+ */
+@Configuration
+@Import(VirtualThreadPinningMonitor.class)
+public class DiagnosticsConfig {
+}
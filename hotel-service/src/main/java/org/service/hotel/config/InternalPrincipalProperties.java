@@ -0,0 +1,21 @@
+package org.service.hotel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Ключ заголовка X-Internal-Principal: проверка заголовка от gateway
+ * и подпись собственных вызовов booking-service от имени сервиса
+ */
+@Configuration
+@ConfigurationProperties(prefix = "internal.principal")
+@Data
+public class InternalPrincipalProperties {
+    private String secret;
+    private String serviceName = "hotel-service";
+    // Подпись ставится на каждый вызов, срок нужен только на время перехода
+    private Duration ttl = Duration.ofSeconds(60);
+}
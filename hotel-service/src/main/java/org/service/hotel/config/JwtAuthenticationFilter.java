@@ -0,0 +1,75 @@
+package org.service.hotel.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.service.common.util.InternalPrincipal;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Аутентификация по заголовку X-Internal-Principal от gateway или, если его нет,
+ * по Authorization: Bearer; токен разбирается один раз за запрос.
+ * Запрос без валидных данных проходит дальше неаутентифицированным.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final InternalPrincipalProperties internalPrincipalProperties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String internal = request.getHeader(InternalPrincipal.HEADER);
+        if (internal != null) {
+            // Подпись gateway проверяется одним HMAC, без разбора JWT
+            InternalPrincipal verified = InternalPrincipal.verify(internal,
+                    internalPrincipalProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+            if (verified != null) {
+                authenticate(verified.getUsername(), verified.getRole());
+                filterChain.doFilter(request, response);
+                return;
+            }
+            log.debug("Rejected internal principal header");
+        }
+
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            try {
+                Claims claims = jwtTokenProvider.getClaims(header.substring(BEARER_PREFIX.length()));
+                Object role = claims.get("roles");
+                authenticate(claims.getSubject(), role != null ? role.toString() : null);
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Rejected JWT: {}", e.getMessage());
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(String username, String role) {
+        User principal = new User(username, "",
+                role != null ? List.of(new SimpleGrantedAuthority("ROLE_" + role)) : List.of());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -1,37 +1,49 @@
 package org.service.hotel.config;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import org.service.booking.entity.User;
+import org.service.common.util.VerifiedTokenCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 
+/**
+ * Проверка JWT, выпущенных booking-service. Парсер с ключом создаётся один раз,
+ * проверенные claims кэшируются по SHA-256 токена до его exp.
+ */
 @Component
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final JwtParser parser;
+    private final VerifiedTokenCache<Claims> claimsCache;
 
-    private final long jwtExpiration = 86400000;
+    public JwtTokenProvider(@Value("${jwt.secret}") String jwtSecret,
+                            @Value("${jwt.claims-cache.max-size:10000}") long maxSize,
+                            @Value("${jwt.claims-cache.max-ttl:1h}") Duration maxTtl) {
+        this.parser = Jwts.parser().setSigningKey(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8),
+                SignatureAlgorithm.HS256.getJcaName()));
+        this.claimsCache = new VerifiedTokenCache<>(maxSize, maxTtl, Claims::getExpiration);
+    }
 
     public String getUsernameFromToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(jwtSecret.getBytes(StandardCharsets.UTF_8))
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return getClaims(token).getSubject();
+    }
+
+    /**
+     * Claims проверенного токена; невалидный токен приводит к исключению и не кэшируется
+     */
+    public Claims getClaims(String token) {
+        return claimsCache.get(token, t -> parser.parseClaimsJws(t).getBody());
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .setSigningKey(jwtSecret.getBytes(StandardCharsets.UTF_8))
-                    .parseClaimsJws(token);
+            getClaims(token);
             return true;
         } catch (Exception e) {
             return false;
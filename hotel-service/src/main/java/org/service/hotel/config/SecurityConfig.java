@@ -1,8 +1,10 @@
 package org.service.hotel.config;
 
 import lombok.RequiredArgsConstructor;
+import org.service.common.util.InternalPrincipal;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -17,7 +19,17 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final String[] INTERNAL_ENDPOINTS = {
+            "/api/hotels/rooms/allocate",
+            "/api/hotels/rooms/hold-batch",
+            "/api/hotels/rooms/release-batch",
+            "/api/hotels/rooms/*/confirm-availability",
+            "/api/hotels/rooms/*/confirm",
+            "/api/hotels/rooms/*/release"
+    };
+
     private final JwtTokenProvider jwtTokenProvider;
+    private final InternalPrincipalProperties internalPrincipalProperties;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -26,8 +38,12 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
-                        .requestMatchers("/api/hotels/**").hasAnyRole("USER", "ADMIN")
-                );
+                        // Шаги саги: только booking-service с подписанным X-Internal-Principal роли SERVICE.
+                        // gateway отбрасывает этот заголовок от клиентов, поэтому снаружи эндпоинты недоступны
+                        .requestMatchers(HttpMethod.POST, INTERNAL_ENDPOINTS).hasRole(InternalPrincipal.SERVICE_ROLE)
+                        .requestMatchers("/api/hotels/**").hasAnyRole("USER", "ADMIN", InternalPrincipal.SERVICE_ROLE)
+                )
+                .addFilterBefore(new JwtAuthenticationFilter(jwtTokenProvider, internalPrincipalProperties), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -1,14 +1,75 @@
 package org.service.hotel.config;
 
+import io.netty.channel.ChannelOption;
+import org.service.common.util.InternalPrincipal;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 
 @Configuration
 public class WebClientConfig {
 
+    /**
+     * Выделенный пул для межсервисных вызовов. Метрики пула (активные, простаивающие,
+     * ожидающие соединения и время ожидания) публикуются как reactor.netty.connection.provider.*
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider interServiceConnectionProvider(HttpClientProperties properties) {
+        return ConnectionProvider.builder("inter-service")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .maxLifeTime(properties.getMaxLifeTime())
+                .evictInBackground(properties.getEvictionInterval())
+                .metrics(properties.isMetricsEnabled())
+                .build();
+    }
+
+    @Bean
+    public ClientHttpConnector interServiceHttpConnector(ConnectionProvider interServiceConnectionProvider,
+                                                         HttpClientProperties properties) {
+        HttpClient httpClient = HttpClient.create(interServiceConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getResponseTimeout())
+                .protocol(properties.isHttp2()
+                        ? new HttpProtocol[]{HttpProtocol.H2C, HttpProtocol.HTTP11}
+                        : new HttpProtocol[]{HttpProtocol.HTTP11});
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    /**
+     * Вызовы booking-service подписаны X-Internal-Principal с ролью SERVICE,
+     * иначе внутренние эндпоинты бронирований их не пропустят
+     */
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder().build();
+    public WebClient webClient(ClientHttpConnector interServiceHttpConnector,
+                               InternalPrincipalProperties internalPrincipalProperties) {
+        return WebClient.builder()
+                .clientConnector(interServiceHttpConnector)
+                .filter(servicePrincipal(internalPrincipalProperties))
+                .build();
+    }
+
+    /**
+     * Подпись ставится на каждый запрос заново: срок заголовка короткий
+     */
+    static ExchangeFilterFunction servicePrincipal(InternalPrincipalProperties properties) {
+        byte[] key = properties.getSecret().getBytes(StandardCharsets.UTF_8);
+        return (request, next) -> next.exchange(ClientRequest.from(request)
+                .headers(headers -> headers.set(InternalPrincipal.HEADER, InternalPrincipal.sign(
+                        properties.getServiceName(), null, InternalPrincipal.SERVICE_ROLE,
+                        Instant.now().plus(properties.getTtl()).getEpochSecond(), key)))
+                .build());
     }
-}
\ No newline at end of file
+}
@@ -5,10 +5,13 @@ import org.service.hotel.dto.CreateHotelRequest;
 import org.service.hotel.dto.HotelDTO;
 import org.service.hotel.entity.Hotel;
 import org.service.hotel.mapper.HotelMapper;
+import org.service.hotel.service.CatalogVersions;
 import org.service.hotel.service.HotelService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -20,6 +23,7 @@ public class HotelController {
 
     private final HotelService hotelService;
     private final HotelMapper hotelMapper;
+    private final CatalogVersions catalogVersions;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -31,10 +35,16 @@ public class HotelController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<List<HotelDTO>> getAllHotels() {
+    public ResponseEntity<List<HotelDTO>> getAllHotels(WebRequest webRequest) {
+        // Версия берётся до чтения списка; совпадение с If-None-Match - 304 без запроса в БД
+        String eTag = catalogVersions.hotelsETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
         List<HotelDTO> hotels = hotelService.getAllHotels().stream()
                 .map(hotelMapper::toDTO)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(hotels);
+        return ResponseEntity.ok().eTag(eTag).body(hotels);
     }
 }
\ No newline at end of file
@@ -2,13 +2,22 @@ package org.service.hotel.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.service.hotel.dto.CreateRoomRequest;
+import org.service.hotel.dto.GroupHoldRequest;
 import org.service.hotel.dto.RoomAvailabilityRequest;
 import org.service.hotel.dto.RoomDTO;
+import org.service.hotel.dto.RoomReleaseRequest;
 import org.service.hotel.entity.Room;
+import org.service.hotel.exception.RoomNotAvailableException;
+import org.service.hotel.exception.RoomNotFoundException;
 import org.service.hotel.mapper.RoomMapper;
+import org.service.hotel.service.CatalogVersions;
 import org.service.hotel.service.RoomService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,6 +28,7 @@ public class RoomController {
 
     private final RoomService roomService;
     private final RoomMapper roomMapper;
+    private final CatalogVersions catalogVersions;
 
     @PostMapping()
     public ResponseEntity<RoomDTO> createRoom(@RequestBody CreateRoomRequest request) {
@@ -27,19 +37,63 @@ public class RoomController {
     }
 
     @GetMapping()
-    public ResponseEntity<List<RoomDTO>> getAllRooms() {
+    public ResponseEntity<List<RoomDTO>> getAllRooms(WebRequest webRequest) {
+        String eTag = catalogVersions.roomsETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
         List<RoomDTO> rooms = roomService.getAllRooms().stream()
                 .map(roomMapper::toDTO)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(rooms);
+        return ResponseEntity.ok().eTag(eTag).body(rooms);
     }
 
+    /**
+     * Рекомендации строятся по тем же номерам, поэтому используют версию списка номеров
+     */
     @GetMapping("/recommend")
-    public ResponseEntity<List<RoomDTO>> getRecommendedRooms() {
+    public ResponseEntity<List<RoomDTO>> getRecommendedRooms(WebRequest webRequest) {
+        String eTag = catalogVersions.roomsETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
         List<RoomDTO> rooms = roomService.getRecommendedRooms().stream()
                 .map(roomMapper::toDTO)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(rooms);
+        return ResponseEntity.ok().eTag(eTag).body(rooms);
+    }
+
+    /**
+     * Свободные номера на даты по календарю занятости
+     */
+    @GetMapping("/available")
+    public ResponseEntity<List<RoomDTO>> getAvailableRooms(
+            @RequestParam("startDate") LocalDate startDate,
+            @RequestParam("endDate") LocalDate endDate) {
+
+        try {
+            List<RoomDTO> rooms = roomService.findAvailableRooms(startDate, endDate).stream()
+                    .map(roomMapper::toDTO)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(rooms);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<Boolean> checkAvailability(
+            @PathVariable("id") Long id,
+            @RequestParam("startDate") LocalDate startDate,
+            @RequestParam("endDate") LocalDate endDate) {
+
+        try {
+            return ResponseEntity.ok(roomService.isRoomAvailable(id, startDate, endDate));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -51,17 +105,90 @@ public class RoomController {
             @PathVariable("id") Long id,
             @RequestBody RoomAvailabilityRequest request) {
 
-        boolean available = roomService.confirmAvailability(id, request);
-        return ResponseEntity.ok(available);
+        try {
+            boolean available = roomService.confirmAvailability(id, request);
+            return ResponseEntity.ok(available);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Автоподбор: выбрать наименее загруженный свободный номер и заблокировать его одним шагом
+     * INTERNAL - используется Booking Service при автоподборе
+     */
+    @PostMapping("/allocate")
+    public ResponseEntity<RoomDTO> allocateRoom(@RequestBody RoomAvailabilityRequest request) {
+        try {
+            Room room = roomService.allocateRoom(request);
+            return ResponseEntity.ok(roomMapper.toDTO(room));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RoomNotAvailableException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Групповая блокировка номеров одним вызовом: все или ни одного
+     * INTERNAL - используется Booking Service для групповых бронирований
+     */
+    @PostMapping("/hold-batch")
+    public ResponseEntity<List<RoomDTO>> holdRooms(@RequestBody GroupHoldRequest request) {
+        try {
+            List<RoomDTO> rooms = roomService.holdRooms(request).stream()
+                    .map(roomMapper::toDTO)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(rooms);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RoomNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (RoomNotAvailableException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Перевести блокировку в подтверждённое бронирование
+     * INTERNAL - вызывается после перехода бронирования в CONFIRMED
+     */
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<Boolean> confirmReservation(
+            @PathVariable("id") Long id,
+            @RequestBody RoomAvailabilityRequest request) {
+
+        boolean confirmed = roomService.confirmReservation(id, request);
+        return ResponseEntity.ok(confirmed);
     }
 
     /**
-     * Компенсирующее действие: снять временную блокировку
-     * INTERNAL - маршрут не публикуется через Gateway
+     * Компенсирующее действие: снять резервацию саги
+     * INTERNAL - вызывается Booking Service при компенсации
      */
     @PostMapping("/{id}/release")
-    public ResponseEntity<Void> releaseRoom(@PathVariable("id") Long id) {
-        roomService.releaseRoom(id);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Void> releaseRoom(
+            @PathVariable("id") Long id,
+            @RequestParam("correlationId") String correlationId) {
+        try {
+            roomService.releaseRoom(id, correlationId);
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Пакетная компенсация: снять резервации нескольких саг одним вызовом, correlationId обязателен
+     * INTERNAL - вызывается очередью компенсаций Booking Service
+     */
+    @PostMapping("/release-batch")
+    public ResponseEntity<Void> releaseRooms(@RequestBody List<RoomReleaseRequest> requests) {
+        try {
+            roomService.releaseRooms(requests);
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package org.service.hotel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Групповая блокировка номеров на одни даты: все номера или ни одного
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupHoldRequest {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<Item> rooms;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long roomId; // null - номер подбирается автоматически
+        private String correlationId;
+    }
+}
@@ -0,0 +1,21 @@
+package org.service.hotel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Снятие блокировки номера в пакетной компенсации.
+ * correlationId обязателен: снимается только резервация этой саги.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomReleaseRequest {
+    private Long roomId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String correlationId;
+}
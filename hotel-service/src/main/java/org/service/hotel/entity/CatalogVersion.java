@@ -0,0 +1,28 @@
+package org.service.hotel.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Версия каталога (hotels, rooms) для ETag. Хранится в общей БД, поэтому одинакова на всех экземплярах
+ * и переживает рестарт.
+ */
+@Entity
+@Table(name = "catalog_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogVersion {
+
+    @Id
+    @Column(name = "catalog", length = 32)
+    private String catalog;
+
+    @Column(nullable = false)
+    private Long version;
+}
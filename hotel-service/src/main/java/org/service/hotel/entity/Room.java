@@ -6,8 +6,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.time.LocalDateTime;
-
 @Entity
 @Table(name = "rooms")
 @Data
@@ -35,9 +33,6 @@ public class Room {
     @Column(name = "times_booked")
     private Integer timesBooked = 0;
 
-    @Column(name = "locked_until")
-    private LocalDateTime lockedUntil;
-
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "hotel_id")
     private Hotel hotel;
@@ -9,4 +9,8 @@ import org.springframework.context.annotation.Configuration;
 @Data
 public class RoomLockProperties {
     private long timeoutSeconds = 30;
+    private int stripes = 64;
+    // Колесо таймеров для снятия блокировок: шаг и число корзин на уровне
+    private long wheelTickMillis = 100;
+    private int wheelSize = 64;
 }
@@ -0,0 +1,58 @@
+package org.service.hotel.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Занятость номера на диапазон ночей [startDate, endDate).
+ * HELD - временная блокировка шага саги, CONFIRMED - подтверждённое бронирование.
+ */
+@Entity
+@Table(name = "room_reservations", indexes = {
+        @Index(name = "idx_room_reservations_room_dates", columnList = "room_id, start_date, end_date"),
+        @Index(name = "idx_room_reservations_correlation", columnList = "correlation_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomReservation {
+
+    @Id
+    // SEQUENCE с пулом значений: IDENTITY отключает JDBC batch при вставке
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_reservations_seq")
+    @SequenceGenerator(name = "room_reservations_seq", sequenceName = "room_reservations_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ReservationStatus status = ReservationStatus.HELD;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil; // только для HELD
+
+    @Column(name = "correlation_id")
+    private String correlationId; // повтор шага саги с тем же id не создаёт новую блокировку
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public enum ReservationStatus {
+        HELD, CONFIRMED
+    }
+}
@@ -0,0 +1,41 @@
+package org.service.hotel.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Ночь номера, занятая резервацией. Пишется в одной транзакции с {@link RoomReservation};
+ * уникальность (room_id, night) не даёт двум экземплярам hotel-service, у каждого из которых
+ * свой in-memory календарь, занять одну и ту же ночь.
+ */
+@Entity
+@Table(name = "room_reservation_nights", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_room_reservation_nights_room_night", columnNames = {"room_id", "night"})
+}, indexes = {
+        @Index(name = "idx_room_reservation_nights_reservation", columnList = "reservation_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomReservationNight {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_reservation_nights_seq")
+    @SequenceGenerator(name = "room_reservation_nights_seq", sequenceName = "room_reservation_nights_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "reservation_id", nullable = false)
+    private Long reservationId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(nullable = false)
+    private LocalDate night;
+}
@@ -0,0 +1,19 @@
+package org.service.hotel.repository;
+
+import org.service.hotel.entity.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, String> {
+
+    /**
+     * Атомарное увеличение версии одним UPDATE, без чтения строки
+     */
+    @Modifying
+    @Query("update CatalogVersion v set v.version = v.version + 1 where v.catalog = :catalog")
+    int increment(@Param("catalog") String catalog);
+}
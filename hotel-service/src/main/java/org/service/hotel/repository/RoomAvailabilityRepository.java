@@ -0,0 +1,18 @@
+package org.service.hotel.repository;
+
+import org.service.hotel.entity.Room;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Поиск свободных номеров по календарю занятости вместо сканирования таблицы.
+ */
+public interface RoomAvailabilityRepository {
+
+    /**
+     * Номера, свободные на все ночи диапазона [startDate, endDate),
+     * отсортированные по возрастанию times_booked, при равенстве - по id.
+     */
+    List<Room> findAvailableRooms(LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,26 @@
+package org.service.hotel.repository;
+
+import org.service.hotel.entity.Room;
+import org.service.hotel.service.RoomAvailabilityCalendar;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class RoomAvailabilityRepositoryImpl implements RoomAvailabilityRepository {
+
+    // Календарь сам зависит от RoomRepository, поэтому получаем его лениво
+    private final ObjectProvider<RoomAvailabilityCalendar> availabilityCalendar;
+
+    public RoomAvailabilityRepositoryImpl(ObjectProvider<RoomAvailabilityCalendar> availabilityCalendar) {
+        this.availabilityCalendar = availabilityCalendar;
+    }
+
+    /**
+     * Ответ целиком из памяти: календарь держит и занятость, и снимки номеров
+     */
+    @Override
+    public List<Room> findAvailableRooms(LocalDate startDate, LocalDate endDate) {
+        return availabilityCalendar.getObject().findAvailableRooms(startDate, endDate);
+    }
+}
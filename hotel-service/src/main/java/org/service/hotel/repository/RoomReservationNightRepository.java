@@ -0,0 +1,18 @@
+package org.service.hotel.repository;
+
+import org.service.hotel.entity.RoomReservationNight;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface RoomReservationNightRepository extends JpaRepository<RoomReservationNight, Long> {
+
+    @Modifying
+    @Query("delete from RoomReservationNight n where n.reservationId in :reservationIds")
+    int deleteByReservationIdIn(@Param("reservationIds") Collection<Long> reservationIds);
+}
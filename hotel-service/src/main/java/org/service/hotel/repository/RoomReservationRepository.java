@@ -0,0 +1,23 @@
+package org.service.hotel.repository;
+
+import org.service.hotel.entity.RoomReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RoomReservationRepository extends JpaRepository<RoomReservation, Long> {
+
+    List<RoomReservation> findByEndDateAfter(LocalDate date);
+
+    List<RoomReservation> findByStatus(RoomReservation.ReservationStatus status);
+
+    List<RoomReservation> findByCorrelationId(String correlationId);
+
+    List<RoomReservation> findByCorrelationIdIn(Collection<String> correlationIds);
+
+    List<RoomReservation> findByRoomIdAndCorrelationId(Long roomId, String correlationId);
+}
@@ -0,0 +1,151 @@
+package org.service.hotel.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.service.hotel.entity.CatalogVersion;
+import org.service.hotel.repository.CatalogVersionRepository;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии каталога отелей и номеров для ETag.
+ * ETag строится из общей версии таблицы catalog_versions, которую экземпляр держит в памяти,
+ * поэтому 304 отдаётся без обращения к базе, а все экземпляры при одном состоянии каталога
+ * и после рестарта отдают один и тот же ETag.
+ * <p>
+ * Изменение учитывается после фиксации транзакции: до синхронизации ETag получает метку
+ * несинхронизированных изменений этого экземпляра, поэтому сразу перестаёт совпадать.
+ * Фоновая синхронизация одним UPDATE переносит накопленные изменения в catalog_versions
+ * и перечитывает общую версию; путь подтверждения брони горячую строку не блокирует.
+ * Читатель берёт ETag до чтения данных, поэтому ETag никогда не опережает отданный список.
+ * Изменение на другом экземпляре становится видно через интервал синхронизации.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogVersions {
+
+    static final String HOTELS = "hotels";
+    static final String ROOMS = "rooms";
+
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Метка несинхронизированных изменений: у разных экземпляров они разные
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final Catalog hotels = new Catalog(HOTELS);
+    private final Catalog rooms = new Catalog(ROOMS);
+
+    /**
+     * Строки версий создаются при старте; параллельный старт другого экземпляра допустим
+     */
+    @PostConstruct
+    void initialize() {
+        for (Catalog catalog : List.of(hotels, rooms)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!catalogVersionRepository.existsById(catalog.name)) {
+                        catalogVersionRepository.saveAndFlush(new CatalogVersion(catalog.name, 0L));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Строку успел создать другой экземпляр
+            }
+        }
+        synchronize();
+    }
+
+    public String hotelsETag() {
+        return eTag(hotels);
+    }
+
+    public String roomsETag() {
+        return eTag(rooms);
+    }
+
+    public void hotelsChanged() {
+        afterCommit(hotels);
+    }
+
+    public void roomsChanged() {
+        afterCommit(rooms);
+    }
+
+    /**
+     * Обмен версиями с другими экземплярами, вне транзакций запросов
+     */
+    @Scheduled(fixedDelayString = "${catalog.versions.sync-interval:PT1S}")
+    public void synchronize() {
+        for (Catalog catalog : List.of(hotels, rooms)) {
+            try {
+                synchronize(catalog);
+            } catch (DataAccessException e) {
+                log.warn("Catalog version sync failed for {}: {}", catalog.name, e.getMessage());
+            }
+        }
+    }
+
+    private void synchronize(Catalog catalog) {
+        long pending = catalog.pending.get();
+        Long shared = transactionTemplate.execute(status -> {
+            // Все изменения с прошлой синхронизации отмечаются одним увеличением
+            if (pending > 0) {
+                catalogVersionRepository.increment(catalog.name);
+            }
+            return catalogVersionRepository.findById(catalog.name)
+                    .map(CatalogVersion::getVersion)
+                    .orElse(0L);
+        });
+
+        // Сначала новая общая версия, затем снятие метки: ETag не вернётся к уже отданному значению
+        catalog.shared = shared;
+        catalog.pending.addAndGet(-pending);
+    }
+
+    private String eTag(Catalog catalog) {
+        long shared = catalog.shared;
+        long pending = catalog.pending.get();
+        return pending == 0
+                ? "\"" + catalog.name + "-" + shared + "\""
+                : "\"" + catalog.name + "-" + shared + "-" + instance + "." + pending + "\"";
+    }
+
+    private void afterCommit(Catalog catalog) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            catalog.changed();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                catalog.changed();
+            }
+        });
+    }
+
+    private static final class Catalog {
+        private final String name;
+        // Изменения, ещё не перенесённые в catalog_versions
+        private final AtomicLong pending = new AtomicLong();
+        // Последняя прочитанная версия из catalog_versions; пишется только синхронизацией
+        private volatile long shared;
+
+        private Catalog(String name) {
+            this.name = name;
+        }
+
+        private void changed() {
+            pending.incrementAndGet();
+        }
+    }
+}
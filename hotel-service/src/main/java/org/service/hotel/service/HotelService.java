@@ -16,6 +16,8 @@ import java.util.List;
 public class HotelService {
 
     private final HotelRepository hotelRepository;
+    private final CatalogVersions catalogVersions;
+    private final RoomAvailabilityCalendar availabilityCalendar;
 
     public List<Hotel> getAllHotels() {
         return hotelRepository.findAll();
@@ -27,19 +29,27 @@ public class HotelService {
     }
 
     public Hotel createHotel(Hotel hotel) {
-        return hotelRepository.save(hotel);
+        Hotel saved = hotelRepository.save(hotel);
+        catalogVersions.hotelsChanged();
+        return saved;
     }
 
     public Hotel updateHotel(Long id, Hotel hotelDetails) {
         Hotel hotel = getHotelById(id);
         hotel.setName(hotelDetails.getName());
         hotel.setAddress(hotelDetails.getAddress());
-        return hotelRepository.save(hotel);
+        Hotel saved = hotelRepository.save(hotel);
+        catalogVersions.hotelsChanged();
+        return saved;
     }
 
     public void deleteHotel(Long id) {
         Hotel hotel = getHotelById(id);
         hotelRepository.delete(hotel);
+        // Номера отеля удаляются каскадом
+        availabilityCalendar.hotelRemoved(id);
+        catalogVersions.hotelsChanged();
+        catalogVersions.roomsChanged();
     }
 
     public Hotel createHotel(CreateHotelRequest request) {
@@ -0,0 +1,159 @@
+package org.service.hotel.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.service.hotel.entity.Hotel;
+import org.service.hotel.entity.Room;
+import org.service.hotel.entity.RoomReservation;
+import org.service.hotel.repository.RoomRepository;
+import org.service.hotel.repository.RoomReservationRepository;
+import org.service.hotel.util.NightCalendar;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory календарь занятости всех номеров по ночам.
+ * Загружается из room_reservations при старте и поддерживается в актуальном
+ * состоянии операциями блокировки, подтверждения и снятия блокировки.
+ * Рядом с календарями хранятся снимки номеров (available, times_booked и поля списка),
+ * поэтому поиск свободных номеров отвечает целиком из памяти, без запроса к rooms.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoomAvailabilityCalendar {
+
+    private final RoomRepository roomRepository;
+    private final RoomReservationRepository roomReservationRepository;
+
+    private static final Comparator<Room> LEAST_BOOKED_FIRST = Comparator
+            .comparing((Room room) -> room.getTimesBooked() == null ? 0 : room.getTimesBooked())
+            .thenComparing(Room::getId);
+
+    private final Map<Long, NightCalendar> calendars = new ConcurrentHashMap<>();
+    // Снимки отдаются только копиями: вызывающий код может менять полученные номера
+    private final Map<Long, Room> rooms = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        roomRepository.findAll().forEach(this::registerRoom);
+
+        List<RoomReservation> reservations = roomReservationRepository.findByEndDateAfter(LocalDate.now());
+        for (RoomReservation reservation : reservations) {
+            calendarOf(reservation.getRoomId())
+                    .occupy(reservation.getStartDate().toEpochDay(), reservation.getEndDate().toEpochDay());
+        }
+
+        log.info("Availability calendar loaded: {} rooms, {} reservations", calendars.size(), reservations.size());
+    }
+
+    public void registerRoom(Room room) {
+        rooms.put(room.getId(), snapshot(room));
+        calendarOf(room.getId());
+    }
+
+    /**
+     * Обновить снимок номера (например, times_booked) после фиксации транзакции изменения
+     */
+    public void roomChanged(Room room) {
+        Room updated = snapshot(room);
+        afterCommit(() -> rooms.put(updated.getId(), updated));
+    }
+
+    /**
+     * Номера отеля удаляются каскадом вместе с ним
+     */
+    public void hotelRemoved(Long hotelId) {
+        afterCommit(() -> rooms.values().removeIf(room -> {
+            boolean ofHotel = room.getHotel() != null && hotelId.equals(room.getHotel().getId());
+            if (ofHotel) {
+                calendars.remove(room.getId());
+            }
+            return ofHotel;
+        }));
+    }
+
+    public boolean isAvailable(Long roomId, LocalDate startDate, LocalDate endDate) {
+        NightCalendar calendar = calendars.get(roomId);
+        return calendar == null || calendar.isFree(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    /**
+     * Номера в продаже, свободные на все ночи диапазона [startDate, endDate),
+     * по возрастанию times_booked, при равенстве - по id
+     */
+    public List<Room> findAvailableRooms(LocalDate startDate, LocalDate endDate) {
+        long fromDay = startDate.toEpochDay();
+        long toDay = endDate.toEpochDay();
+
+        List<Room> available = new ArrayList<>();
+        rooms.forEach((roomId, room) -> {
+            NightCalendar calendar = calendars.get(roomId);
+            if (Boolean.TRUE.equals(room.getAvailable()) && (calendar == null || calendar.isFree(fromDay, toDay))) {
+                available.add(room);
+            }
+        });
+        available.sort(LEAST_BOOKED_FIRST);
+        return available.stream().map(RoomAvailabilityCalendar::snapshot).toList();
+    }
+
+    public void hold(Long roomId, LocalDate startDate, LocalDate endDate) {
+        calendarOf(roomId).occupy(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    public void release(Long roomId, LocalDate startDate, LocalDate endDate) {
+        NightCalendar calendar = calendars.get(roomId);
+        if (calendar != null) {
+            calendar.release(startDate.toEpochDay(), endDate.toEpochDay());
+        }
+    }
+
+    /**
+     * Освобождение памяти от прошедших ночей
+     */
+    @Scheduled(cron = "0 0 3 * * *")
+    public void trimPastNights() {
+        long today = LocalDate.now().toEpochDay();
+        calendars.values().forEach(calendar -> calendar.trimBefore(today));
+    }
+
+    private NightCalendar calendarOf(Long roomId) {
+        return calendars.computeIfAbsent(roomId, id -> new NightCalendar());
+    }
+
+    private static Room snapshot(Room room) {
+        return Room.builder()
+                .id(room.getId())
+                .number(room.getNumber())
+                .type(room.getType())
+                .price(room.getPrice())
+                .available(room.getAvailable())
+                .timesBooked(room.getTimesBooked())
+                // Только id отеля: снимок живёт вне сессии, ленивую связь трогать нельзя
+                .hotel(room.getHotel() != null ? Hotel.builder().id(room.getHotel().getId()).build() : null)
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package org.service.hotel.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.service.hotel.entity.RoomLockProperties;
+import org.service.hotel.util.HierarchicalTimingWheel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Снятие временных блокировок номеров точно в момент locked_until.
+ * Каждая блокировка планируется в колесе таймеров при создании и отменяется при подтверждении
+ * или снятии, поэтому периодический просмотр таблицы room_reservations не нужен.
+ */
+@Slf4j
+@Component
+public class RoomHoldExpiryScheduler implements MeterBinder {
+
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+
+    private final HierarchicalTimingWheel timingWheel;
+    private final Map<Long, ScheduledHold> timeouts = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread reaper;
+
+    public RoomHoldExpiryScheduler(RoomLockProperties roomLockProperties,
+                                   @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.timingWheel = new HierarchicalTimingWheel(
+                roomLockProperties.getWheelTickMillis(), roomLockProperties.getWheelSize(), executor);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        reaper = new Thread(this::reap, "room-hold-expiry");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (reaper != null) {
+            reaper.interrupt();
+        }
+    }
+
+    /**
+     * Запланировать снятие блокировки; повторный вызов для той же блокировки переносит срок
+     */
+    public void schedule(Long reservationId, LocalDateTime lockedUntil, Runnable onExpire) {
+        long deadline = lockedUntil.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        ScheduledHold hold = new ScheduledHold();
+        hold.timeout = timingWheel.schedule(deadline, () -> {
+            hold.fired = true;
+            timeouts.remove(reservationId, hold);
+            onExpire.run();
+        });
+
+        ScheduledHold previous = timeouts.put(reservationId, hold);
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+        // Просроченная блокировка могла сработать раньше, чем попала в карту
+        if (hold.fired) {
+            timeouts.remove(reservationId, hold);
+        }
+    }
+
+    public void cancel(Long reservationId) {
+        ScheduledHold hold = timeouts.remove(reservationId);
+        if (hold != null) {
+            hold.timeout.cancel();
+        }
+    }
+
+    public int getPendingCount() {
+        return timeouts.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("hotel.room.hold.pending", this, RoomHoldExpiryScheduler::getPendingCount)
+                .description("Room holds waiting for expiry")
+                .register(registry);
+    }
+
+    private void reap() {
+        while (running) {
+            try {
+                timingWheel.advance(POLL_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Room hold expiry failed", e);
+            }
+        }
+    }
+
+    private static final class ScheduledHold {
+        private HierarchicalTimingWheel.Timeout timeout;
+        private volatile boolean fired;
+    }
+}
@@ -0,0 +1,133 @@
+package org.service.hotel.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.service.hotel.entity.RoomLockProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Полосатые (striped) блокировки по id номера.
+ * Операции над одним номером выполняются последовательно, над разными номерами - параллельно,
+ * без глобальной блокировки и без блокировок строк в БД.
+ */
+@Component
+public class RoomLockManager implements MeterBinder {
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    public RoomLockManager(RoomLockProperties roomLockProperties) {
+        int requested = Math.max(1, roomLockProperties.getStripes());
+        int count = Integer.highestOneBit(requested) == requested ? requested : Integer.highestOneBit(requested) << 1;
+
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = count - 1;
+    }
+
+    public <T> T withLock(Long roomId, Supplier<T> action) {
+        Stripe stripe = stripeFor(roomId);
+        stripe.lock();
+        try {
+            return action.get();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void withLock(Long roomId, Runnable action) {
+        withLock(roomId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Выполнить действие под блокировками нескольких номеров.
+     * Полосы захватываются по возрастанию индекса (каждая один раз), поэтому два групповых
+     * запроса с пересекающимися номерами не могут взаимно заблокироваться.
+     */
+    public <T> T withLocks(Collection<Long> roomIds, Supplier<T> action) {
+        int[] indexes = roomIds.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        int acquired = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                acquired++;
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[indexes[i]].lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+            String index = String.valueOf(i);
+
+            FunctionCounter.builder("hotel.room.lock.acquisitions", stripe, s -> s.acquisitions.sum())
+                    .description("Room lock acquisitions per stripe")
+                    .tag("stripe", index)
+                    .register(registry);
+
+            FunctionTimer.builder("hotel.room.lock.contention", stripe,
+                            s -> s.contended.sum(), s -> s.waitNanos.sum(), TimeUnit.NANOSECONDS)
+                    .description("Contended room lock acquisitions and time spent waiting")
+                    .tag("stripe", index)
+                    .register(registry);
+
+            Gauge.builder("hotel.room.lock.queue", stripe, s -> s.lock.getQueueLength())
+                    .description("Threads waiting for the stripe")
+                    .tag("stripe", index)
+                    .register(registry);
+        }
+    }
+
+    private Stripe stripeFor(Long roomId) {
+        return stripes[stripeIndex(roomId)];
+    }
+
+    private int stripeIndex(Long roomId) {
+        long h = roomId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+
+        private void lock() {
+            acquisitions.increment();
+            if (lock.tryLock()) {
+                return;
+            }
+
+            contended.increment();
+            long start = System.nanoTime();
+            lock.lock();
+            waitNanos.add(System.nanoTime() - start);
+        }
+    }
+}
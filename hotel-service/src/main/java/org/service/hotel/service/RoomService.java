@@ -1,28 +1,58 @@
 package org.service.hotel.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.service.hotel.dto.CreateRoomRequest;
+import org.service.hotel.dto.GroupHoldRequest;
+import org.service.hotel.dto.RoomReleaseRequest;
 import org.service.hotel.dto.RoomAvailabilityRequest;
 import org.service.hotel.entity.Hotel;
 import org.service.hotel.entity.Room;
 import org.service.hotel.entity.RoomLockProperties;
+import org.service.hotel.entity.RoomReservation;
+import org.service.hotel.entity.RoomReservationNight;
+import org.service.hotel.exception.RoomNotAvailableException;
 import org.service.hotel.exception.RoomNotFoundException;
 import org.service.hotel.repository.HotelRepository;
 import org.service.hotel.repository.RoomRepository;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.service.hotel.repository.RoomReservationNightRepository;
+import org.service.hotel.repository.RoomReservationRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class RoomService {
     private final HotelRepository hotelRepository;
     private final RoomRepository roomRepository;
+    private final RoomReservationRepository roomReservationRepository;
+    private final RoomReservationNightRepository roomReservationNightRepository;
+    private final RoomAvailabilityCalendar availabilityCalendar;
+    private final RoomLockManager roomLockManager;
+    private final RoomHoldExpiryScheduler holdExpiryScheduler;
     private final RoomLockProperties roomLockProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogVersions catalogVersions;
 
     public List<Room> getAllRooms() {
         return roomRepository.findAll();
@@ -32,6 +62,26 @@ public class RoomService {
         return roomRepository.findAvailableRoomsOrderByTimesBooked();
     }
 
+    /**
+     * Свободные номера на даты
+     */
+    @Transactional(readOnly = true)
+    public List<Room> findAvailableRooms(LocalDate startDate, LocalDate endDate) {
+        validateDates(startDate, endDate);
+        return roomRepository.findAvailableRooms(startDate, endDate);
+    }
+
+    /**
+     * Проверить, свободен ли номер на даты
+     */
+    @Transactional(readOnly = true)
+    public boolean isRoomAvailable(Long roomId, LocalDate startDate, LocalDate endDate) {
+        validateDates(startDate, endDate);
+        Room room = getRoomById(roomId);
+        return Boolean.TRUE.equals(room.getAvailable())
+                && availabilityCalendar.isAvailable(roomId, startDate, endDate);
+    }
+
     public Room createRoomByRequest(CreateRoomRequest request) {
         Hotel hotel = hotelRepository.findById(request.getHotelId())
                 .orElseThrow(() -> new RuntimeException("Hotel not found with id: " + request.getHotelId()));
@@ -44,53 +94,454 @@ public class RoomService {
         room.setAvailable(true);
         room.setTimesBooked(0);
 
-        return roomRepository.save(room);
+        Room savedRoom = roomRepository.save(room);
+        availabilityCalendar.registerRoom(savedRoom);
+        catalogVersions.roomsChanged();
+        return savedRoom;
     }
 
     /**
      * Подтвердить доступность номера на даты
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean confirmAvailability(Long roomId, RoomAvailabilityRequest request) {
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RoomNotFoundException("Room not found with id: " + roomId));
+        validateDates(request.getStartDate(), request.getEndDate());
+        Room room = getRoomById(roomId);
+
+        if (!Boolean.TRUE.equals(room.getAvailable())) {
+            return false; // Номер выведен из продажи
+        }
+
+        return holdNights(roomId, request);
+    }
+
+    /**
+     * Выбрать наименее загруженный свободный номер и сразу заблокировать его.
+     * Порядок кандидатов: times_booked по возрастанию, при равенстве - id.
+     * Если номер успели занять параллельно, переходим к следующему кандидату.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Room allocateRoom(RoomAvailabilityRequest request) {
+        validateDates(request.getStartDate(), request.getEndDate());
 
-        // Проверяем не заблокирована ли комната (и не истек ли таймаут)
-        if (room.getLockedUntil() != null && room.getLockedUntil().isAfter(LocalDateTime.now())) {
-            return false; // Уже заблокирована
+        // Повтор шага саги: номер уже выбран и заблокирован
+        RoomReservation existing = findByCorrelation(request);
+        if (existing != null) {
+            return getRoomById(existing.getRoomId());
         }
 
-        room.setAvailable(false);
-        room.setLockedUntil(LocalDateTime.now().plusSeconds(roomLockProperties.getTimeoutSeconds()));
-        roomRepository.save(room);
+        List<Room> candidates = roomRepository.findAvailableRooms(request.getStartDate(), request.getEndDate());
+        for (Room candidate : candidates) {
+            if (holdNights(candidate.getId(), request)) {
+                return candidate;
+            }
+        }
 
-        return true;
+        throw new RoomNotAvailableException("No available rooms for dates "
+                + request.getStartDate() + " - " + request.getEndDate());
     }
 
     /**
-     * Снять временную блокировку
+     * Групповая блокировка: блокируются все номера запроса или ни один.
+     * Номера без roomId подбираются так же, как в {@link #allocateRoom}: сначала выбираются
+     * первые подходящие кандидаты, затем берутся блокировки только запрошенных и выбранных номеров,
+     * и под ними доступность проверяется заново. Если выбранный номер успели занять, он исключается
+     * и подбор повторяется со следующими кандидатами. Блокировки сохраняются одной транзакцией (JDBC batch).
+     *
+     * @return номера в порядке элементов запроса
      */
-    public void releaseRoom(Long roomId) {
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RoomNotFoundException("Room not found with id: " + roomId));
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Room> holdRooms(GroupHoldRequest request) {
+        validateDates(request.getStartDate(), request.getEndDate());
+        List<GroupHoldRequest.Item> items = request.getRooms();
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one room is required");
+        }
 
-        room.setAvailable(true);
-        room.setLockedUntil(null);
-        roomRepository.save(room);
+        // Повтор запроса: группа уже заблокирована
+        List<Room> existing = findGroupByCorrelation(request);
+        if (existing != null) {
+            return existing;
+        }
+
+        List<Long> requestedIds = items.stream()
+                .map(GroupHoldRequest.Item::getRoomId)
+                .filter(Objects::nonNull)
+                .toList();
+        if (new HashSet<>(requestedIds).size() != requestedIds.size()) {
+            throw new IllegalArgumentException("Rooms in a group must not repeat");
+        }
+
+        Map<Long, Room> requested = roomRepository.findAllById(requestedIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+        requestedIds.stream()
+                .filter(roomId -> !requested.containsKey(roomId))
+                .findFirst()
+                .ifPresent(roomId -> {
+                    throw new RoomNotFoundException("Room not found with id: " + roomId);
+                });
+
+        int autoCount = items.size() - requestedIds.size();
+        List<Room> candidates = autoCount == 0
+                ? List.of()
+                : roomRepository.findAvailableRooms(request.getStartDate(), request.getEndDate()).stream()
+                        .filter(room -> !requested.containsKey(room.getId()))
+                        .toList();
+
+        // Каждая неудачная попытка исключает хотя бы один кандидат, поэтому цикл конечен
+        Set<Long> taken = new HashSet<>();
+        while (true) {
+            List<Room> chosen = candidates.stream()
+                    .filter(room -> !taken.contains(room.getId()))
+                    .limit(autoCount)
+                    .toList();
+            if (chosen.size() < autoCount) {
+                throw new RoomNotAvailableException("Not enough available rooms for dates "
+                        + request.getStartDate() + " - " + request.getEndDate());
+            }
+
+            List<Long> lockedIds = Stream.concat(requestedIds.stream(), chosen.stream().map(Room::getId)).toList();
+            int takenBefore = taken.size();
+            List<Room> held = roomLockManager.withLocks(lockedIds, () -> holdGroup(request, requested, chosen, taken));
+            if (held != null) {
+                return held;
+            }
+            if (taken.size() == takenBefore) {
+                // Занят один из запрошенных номеров - замены для него нет
+                throw new RoomNotAvailableException("Rooms are not available for dates "
+                        + request.getStartDate() + " - " + request.getEndDate());
+            }
+        }
+    }
+
+    /**
+     * Перевести временную блокировку саги в подтверждённое бронирование. Блокировка ищется
+     * по correlationId: у другой саги на тот же номер и даты может быть своя запись.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean confirmReservation(Long roomId, RoomAvailabilityRequest request) {
+        validateDates(request.getStartDate(), request.getEndDate());
+        if (request.getCorrelationId() == null) {
+            return false;
+        }
+
+        return roomLockManager.withLock(roomId, () -> transactionTemplate.execute(status -> {
+            Room room = getRoomById(roomId);
+
+            RoomReservation reservation = roomReservationRepository
+                    .findByRoomIdAndCorrelationId(roomId, request.getCorrelationId())
+                    .stream()
+                    .findFirst()
+                    .orElse(null);
+
+            if (reservation == null) {
+                return false; // Блокировка истекла или была снята
+            }
+
+            if (reservation.getStatus() == RoomReservation.ReservationStatus.CONFIRMED) {
+                return true; // Повторный вызов
+            }
+
+            holdExpiryScheduler.cancel(reservation.getId());
+            reservation.setStatus(RoomReservation.ReservationStatus.CONFIRMED);
+            reservation.setLockedUntil(null);
+            roomReservationRepository.save(reservation);
+
+            room.setTimesBooked(room.getTimesBooked() == null ? 1 : room.getTimesBooked() + 1);
+            roomRepository.save(room);
+            // timesBooked отдаётся в списках номеров и меняет порядок рекомендаций и автоподбора
+            availabilityCalendar.roomChanged(room);
+            catalogVersions.roomsChanged();
+            return true;
+        }));
+    }
+
+    /**
+     * Компенсация: снять резервацию саги. Резервации других саг на тот же номер не затрагиваются.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void releaseRoom(Long roomId, String correlationId) {
+        requireCorrelationId(correlationId);
+        getRoomById(roomId);
+
+        roomLockManager.withLock(roomId, () -> {
+            List<RoomReservation> reservations = transactionTemplate.execute(status -> {
+                List<RoomReservation> found = roomReservationRepository.findByRoomIdAndCorrelationId(roomId, correlationId);
+                roomReservationRepository.deleteAll(found);
+                deleteNights(found);
+                return found;
+            });
+
+            reservations.forEach(this::onReleased);
+        });
+    }
+
+    /**
+     * Пакетная компенсация: все блокировки снимаются одной транзакцией под блокировками
+     * затронутых номеров. Каждая запись пакета обязана нести correlationId: снимается только
+     * резервация этой саги. Повтор безопасен - уже снятые блокировки просто не находятся.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void releaseRooms(List<RoomReleaseRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return;
+        }
+        requests.forEach(request -> requireCorrelationId(request.getCorrelationId()));
+
+        List<Long> roomIds = requests.stream().map(RoomReleaseRequest::getRoomId).distinct().toList();
+
+        roomLockManager.withLocks(roomIds, () -> {
+            List<RoomReservation> reservations = transactionTemplate.execute(status -> {
+                // Резервации саг находятся одним запросом по correlationId
+                Map<String, List<RoomReservation>> byCorrelation = roomReservationRepository
+                        .findByCorrelationIdIn(requests.stream().map(RoomReleaseRequest::getCorrelationId).toList())
+                        .stream()
+                        .collect(Collectors.groupingBy(RoomReservation::getCorrelationId));
+
+                List<RoomReservation> found = new ArrayList<>();
+                for (RoomReleaseRequest request : requests) {
+                    byCorrelation.getOrDefault(request.getCorrelationId(), List.of()).stream()
+                            .filter(reservation -> reservation.getRoomId().equals(request.getRoomId()))
+                            .forEach(found::add);
+                }
+                roomReservationRepository.deleteAll(found);
+                deleteNights(found);
+                return found;
+            });
+
+            reservations.forEach(this::onReleased);
+            return null;
+        });
+    }
+
+    /**
+     * Восстановить расписание снятия блокировок после рестарта.
+     * Блокировки, истёкшие во время простоя, снимаются сразу.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void scheduleHeldExpirations() {
+        roomReservationRepository.findByStatus(RoomReservation.ReservationStatus.HELD)
+                .forEach(this::scheduleExpiry);
+    }
+
+    /**
+     * Проверка календаря, запись блокировки и фиксация транзакции выполняются под блокировкой номера,
+     * поэтому два параллельных запроса не могут занять одни и те же ночи.
+     */
+    private boolean holdNights(Long roomId, RoomAvailabilityRequest request) {
+        return roomLockManager.withLock(roomId, () -> {
+            // Повтор шага саги: блокировка с этим correlationId уже есть
+            RoomReservation existing = findByCorrelation(request);
+            if (existing != null) {
+                return existing.getRoomId().equals(roomId);
+            }
+
+            // Ночи заняты другой блокировкой или бронированием
+            if (!availabilityCalendar.isAvailable(roomId, request.getStartDate(), request.getEndDate())) {
+                return false;
+            }
+
+            RoomReservation reservation = RoomReservation.builder()
+                    .roomId(roomId)
+                    .startDate(request.getStartDate())
+                    .endDate(request.getEndDate())
+                    .status(RoomReservation.ReservationStatus.HELD)
+                    .lockedUntil(LocalDateTime.now().plusSeconds(roomLockProperties.getTimeoutSeconds()))
+                    .correlationId(request.getCorrelationId())
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    roomReservationRepository.save(reservation);
+                    saveNights(List.of(reservation));
+                });
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Nights of room {} for {} - {} are already taken in the database",
+                        roomId, request.getStartDate(), request.getEndDate());
+                return false;
+            }
+
+            availabilityCalendar.hold(roomId, request.getStartDate(), request.getEndDate());
+            scheduleExpiry(reservation);
+            return true;
+        });
+    }
+
+    /**
+     * Выполняется под блокировками запрошенных и выбранных номеров группы. null, если хотя бы один
+     * номер занят; занятые выбранные номера добавляются в taken, чтобы подобрать им замену.
+     */
+    private List<Room> holdGroup(GroupHoldRequest request, Map<Long, Room> requested, List<Room> chosen,
+                                 Set<Long> taken) {
+        for (Room room : requested.values()) {
+            if (!Boolean.TRUE.equals(room.getAvailable())
+                    || !availabilityCalendar.isAvailable(room.getId(), request.getStartDate(), request.getEndDate())) {
+                return null;
+            }
+        }
+        // Кандидат мог быть занят после выборки
+        chosen.stream()
+                .filter(room -> !availabilityCalendar.isAvailable(room.getId(), request.getStartDate(), request.getEndDate()))
+                .forEach(room -> taken.add(room.getId()));
+        if (chosen.stream().anyMatch(room -> taken.contains(room.getId()))) {
+            return null;
+        }
+
+        List<Room> selected = new ArrayList<>(request.getRooms().size());
+        Iterator<Room> auto = chosen.iterator();
+        for (GroupHoldRequest.Item item : request.getRooms()) {
+            selected.add(item.getRoomId() != null ? requested.get(item.getRoomId()) : auto.next());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<RoomReservation> reservations = new ArrayList<>(selected.size());
+        for (int i = 0; i < selected.size(); i++) {
+            reservations.add(RoomReservation.builder()
+                    .roomId(selected.get(i).getId())
+                    .startDate(request.getStartDate())
+                    .endDate(request.getEndDate())
+                    .status(RoomReservation.ReservationStatus.HELD)
+                    .lockedUntil(now.plusSeconds(roomLockProperties.getTimeoutSeconds()))
+                    .correlationId(request.getRooms().get(i).getCorrelationId())
+                    .createdAt(now)
+                    .build());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                roomReservationRepository.saveAll(reservations);
+                saveNights(reservations);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Group hold for {} - {} conflicts with nights taken in the database",
+                    request.getStartDate(), request.getEndDate());
+            return null;
+        }
+
+        reservations.forEach(reservation -> {
+            availabilityCalendar.hold(reservation.getRoomId(), request.getStartDate(), request.getEndDate());
+            scheduleExpiry(reservation);
+        });
+        return selected;
+    }
+
+    /**
+     * Номера уже заблокированной группы или null, если группа ещё не блокировалась
+     */
+    private List<Room> findGroupByCorrelation(GroupHoldRequest request) {
+        List<String> correlationIds = request.getRooms().stream()
+                .map(GroupHoldRequest.Item::getCorrelationId)
+                .toList();
+        if (correlationIds.stream().anyMatch(Objects::isNull)) {
+            return null;
+        }
+
+        Map<String, RoomReservation> found = roomReservationRepository.findByCorrelationIdIn(correlationIds).stream()
+                .filter(reservation -> reservation.getStartDate().equals(request.getStartDate())
+                        && reservation.getEndDate().equals(request.getEndDate()))
+                .collect(Collectors.toMap(RoomReservation::getCorrelationId, Function.identity(), (a, b) -> a));
+        if (found.isEmpty()) {
+            return null;
+        }
+        if (found.size() < correlationIds.size()) {
+            // Часть блокировок группы уже истекла или снята
+            throw new RoomNotAvailableException("Group hold is no longer complete");
+        }
+
+        return correlationIds.stream()
+                .map(correlationId -> getRoomById(found.get(correlationId).getRoomId()))
+                .toList();
+    }
+
+    /**
+     * Снять можно только резервацию своей саги, поэтому correlationId обязателен
+     */
+    private void requireCorrelationId(String correlationId) {
+        if (correlationId == null || correlationId.isBlank()) {
+            throw new IllegalArgumentException("correlationId is required to release a reservation");
+        }
+    }
+
+    /**
+     * Занять ночи резерваций в БД. Ночь, занятая через другой экземпляр сервиса, которого нет
+     * в локальном календаре, нарушает уникальность (room_id, night), и транзакция откатывается.
+     */
+    private void saveNights(List<RoomReservation> reservations) {
+        roomReservationNightRepository.saveAllAndFlush(reservations.stream()
+                .flatMap(reservation -> reservation.getStartDate().datesUntil(reservation.getEndDate())
+                        .map(night -> RoomReservationNight.builder()
+                                .reservationId(reservation.getId())
+                                .roomId(reservation.getRoomId())
+                                .night(night)
+                                .build()))
+                .toList());
+    }
+
+    private void deleteNights(List<RoomReservation> reservations) {
+        if (!reservations.isEmpty()) {
+            roomReservationNightRepository.deleteByReservationIdIn(
+                    reservations.stream().map(RoomReservation::getId).toList());
+        }
+    }
+
+    private void onReleased(RoomReservation reservation) {
+        holdExpiryScheduler.cancel(reservation.getId());
+        availabilityCalendar.release(reservation.getRoomId(), reservation.getStartDate(), reservation.getEndDate());
+    }
+
+    private void scheduleExpiry(RoomReservation hold) {
+        if (hold.getLockedUntil() == null) {
+            return;
+        }
+        holdExpiryScheduler.schedule(hold.getId(), hold.getLockedUntil(),
+                () -> expireHold(hold.getRoomId(), hold.getId()));
     }
 
     /**
-     * Фоновая задача для очистки просроченных блокировок
+     * Снять блокировку по истечении срока, если её не успели подтвердить или снять
      */
-    @Scheduled(fixedRate = 10000) // Каждые 10 секунд
-    @Transactional
-    public void cleanupExpiredLocks() {
-        List<Room> expiredRooms = roomRepository.findByLockedUntilBefore(LocalDateTime.now());
+    private void expireHold(Long roomId, Long reservationId) {
+        roomLockManager.withLock(roomId, () -> {
+            RoomReservation expired = transactionTemplate.execute(status -> roomReservationRepository
+                    .findById(reservationId)
+                    .filter(reservation -> reservation.getStatus() == RoomReservation.ReservationStatus.HELD)
+                    .map(reservation -> {
+                        roomReservationRepository.delete(reservation);
+                        deleteNights(List.of(reservation));
+                        return reservation;
+                    })
+                    .orElse(null));
+
+            if (expired != null) {
+                availabilityCalendar.release(roomId, expired.getStartDate(), expired.getEndDate());
+            }
+        });
+    }
 
-        for (Room room : expiredRooms) {
-            room.setAvailable(true);
-            room.setLockedUntil(null);
+    private RoomReservation findByCorrelation(RoomAvailabilityRequest request) {
+        if (request.getCorrelationId() == null) {
+            return null;
         }
+        return roomReservationRepository.findByCorrelationId(request.getCorrelationId())
+                .stream()
+                .filter(reservation -> reservation.getStartDate().equals(request.getStartDate())
+                        && reservation.getEndDate().equals(request.getEndDate()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Room getRoomById(Long roomId) {
+        return roomRepository.findById(roomId)
+                .orElseThrow(() -> new RoomNotFoundException("Room not found with id: " + roomId));
+    }
 
-        roomRepository.saveAll(expiredRooms);
+    private void validateDates(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Start date and end date are required");
+        }
+
+        if (!endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
     }
-}
\ No newline at end of file
+}
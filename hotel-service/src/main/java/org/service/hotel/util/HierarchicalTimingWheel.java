@@ -0,0 +1,280 @@
+package org.service.hotel.util;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Иерархическое колесо таймеров (по образцу Kafka TimingWheel).
+ * Добавление и отмена задачи выполняются за O(1). В {@link DelayQueue} попадают только
+ * непустые корзины, поэтому обработчик просыпается к ближайшему дедлайну, а не по расписанию.
+ * Задача срабатывает на первой границе шага колеса не раньше своего дедлайна;
+ * сработавшие задачи передаются на выполнение в {@link Executor}.
+ */
+public class HierarchicalTimingWheel {
+
+    private final Executor executor;
+    private final DelayQueue<Bucket> queue = new DelayQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Wheel root;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, Executor executor) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        this.executor = executor;
+        this.root = new Wheel(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * Запланировать задачу на момент {@code deadlineMillis} (epoch millis).
+     * Задача с уже прошедшим дедлайном отправляется на выполнение сразу.
+     */
+    public Timeout schedule(long deadlineMillis, Runnable task) {
+        // Округление вверх до границы шага: задача не срабатывает раньше дедлайна
+        Timeout timeout = new Timeout(deadlineMillis, deadlineMillis + root.tickMillis - 1, task);
+        lock.readLock().lock();
+        try {
+            addOrRun(timeout);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return timeout;
+    }
+
+    /**
+     * Дождаться ближайшей корзины (не дольше {@code timeoutMillis}), продвинуть часы
+     * и разобрать все истёкшие корзины.
+     *
+     * @return true, если была обработана хотя бы одна корзина
+     */
+    public boolean advance(long timeoutMillis) throws InterruptedException {
+        Bucket bucket = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (bucket == null) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            while (bucket != null) {
+                root.advanceClock(bucket.getExpiration());
+                bucket.flush(this::addOrRun);
+                bucket = queue.poll();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Количество запланированных и ещё не сработавших задач
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void addOrRun(Timeout timeout) {
+        if (!root.add(timeout) && !timeout.isCancelled()) {
+            executor.execute(timeout::run);
+        }
+    }
+
+    public static final class Timeout {
+        private final long deadlineMillis;
+        private final long expirationMillis;
+        private final Runnable task;
+        private volatile boolean cancelled;
+        private volatile Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(long deadlineMillis, long expirationMillis, Runnable task) {
+            this.deadlineMillis = deadlineMillis;
+            this.expirationMillis = expirationMillis;
+            this.task = task;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Отменить задачу; если она уже передана в Executor, она не будет выполнена.
+         */
+        public void cancel() {
+            cancelled = true;
+            remove();
+        }
+
+        private void run() {
+            if (!cancelled) {
+                task.run();
+            }
+        }
+
+        private void remove() {
+            Bucket current = bucket;
+            while (current != null) {
+                current.remove(this);
+                current = bucket;
+            }
+        }
+    }
+
+    /**
+     * Один уровень колеса. Корзина покрывает {@code tickMillis}, весь уровень - {@code tickMillis * wheelSize};
+     * более далёкие дедлайны уходят на следующий (создаваемый лениво) уровень.
+     */
+    private final class Wheel {
+        private final long tickMillis;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket[] buckets;
+        private long currentTime;
+        private volatile Wheel overflow;
+
+        private Wheel(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.interval = tickMillis * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+            this.currentTime = startMillis - (startMillis % tickMillis);
+        }
+
+        private boolean add(Timeout timeout) {
+            long expiration = timeout.expirationMillis;
+
+            if (timeout.isCancelled() || expiration < currentTime + tickMillis) {
+                return false; // Уже истекла - выполняется сразу
+            }
+
+            if (expiration < currentTime + interval) {
+                long virtualId = expiration / tickMillis;
+                Bucket bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.add(timeout);
+                if (bucket.setExpiration(virtualId * tickMillis)) {
+                    queue.offer(bucket);
+                }
+                return true;
+            }
+
+            return overflowWheel().add(timeout);
+        }
+
+        private Wheel overflowWheel() {
+            Wheel wheel = overflow;
+            if (wheel == null) {
+                synchronized (this) {
+                    wheel = overflow;
+                    if (wheel == null) {
+                        wheel = new Wheel(interval, wheelSize, currentTime);
+                        overflow = wheel;
+                    }
+                }
+            }
+            return wheel;
+        }
+
+        private void advanceClock(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - (timeMillis % tickMillis);
+                Wheel wheel = overflow;
+                if (wheel != null) {
+                    wheel.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * Корзина - двусвязный список задач с общим сроком истечения
+     */
+    private final class Bucket implements Delayed {
+        private final AtomicLong expiration = new AtomicLong(-1L);
+        private final Timeout head = new Timeout(-1L, -1L, null);
+
+        private Bucket() {
+            head.next = head;
+            head.prev = head;
+        }
+
+        private boolean setExpiration(long expirationMillis) {
+            return expiration.getAndSet(expirationMillis) != expirationMillis;
+        }
+
+        private long getExpiration() {
+            return expiration.get();
+        }
+
+        private void add(Timeout timeout) {
+            boolean added = false;
+            while (!added) {
+                // Задача может оказаться в другой корзине при перепланировании
+                timeout.remove();
+
+                synchronized (this) {
+                    synchronized (timeout) {
+                        if (timeout.bucket == null) {
+                            Timeout tail = head.prev;
+                            timeout.next = head;
+                            timeout.prev = tail;
+                            tail.next = timeout;
+                            head.prev = timeout;
+                            timeout.bucket = this;
+                            size.incrementAndGet();
+                            added = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        private synchronized void remove(Timeout timeout) {
+            synchronized (timeout) {
+                if (timeout.bucket == this) {
+                    timeout.next.prev = timeout.prev;
+                    timeout.prev.next = timeout.next;
+                    timeout.next = null;
+                    timeout.prev = null;
+                    timeout.bucket = null;
+                    size.decrementAndGet();
+                }
+            }
+        }
+
+        private synchronized void flush(Consumer<Timeout> consumer) {
+            Timeout timeout = head.next;
+            while (timeout != head) {
+                remove(timeout);
+                consumer.accept(timeout);
+                timeout = head.next;
+            }
+            expiration.set(-1L);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            long delayMillis = Math.max(getExpiration() - System.currentTimeMillis(), 0);
+            return unit.convert(delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getExpiration(), ((Bucket) other).getExpiration());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.service.hotel.util;
+
+import java.util.Arrays;
+
+/**
+ * Компактный календарь занятости одного номера по ночам.
+ * Ночь адресуется номером дня от эпохи ({@link java.time.LocalDate#toEpochDay()}),
+ * установленный бит означает, что ночь занята. Диапазон {@code [fromDay, toDay)}
+ * соответствует датам заезда и выезда.
+ */
+public class NightCalendar {
+
+    private static final int WORD_BITS = 64;
+    private static final int WORD_SHIFT = 6;
+
+    // День эпохи, соответствующий нулевому биту words[0]; всегда кратен 64
+    private long baseDay;
+    private long[] words = new long[0];
+
+    public synchronized boolean isFree(long fromDay, long toDay) {
+        return !anySet(fromDay, toDay);
+    }
+
+    public synchronized void occupy(long fromDay, long toDay) {
+        if (fromDay >= toDay) {
+            return;
+        }
+        ensureCapacity(fromDay, toDay);
+        forEachWord(fromDay, toDay, (index, mask) -> words[index] |= mask);
+    }
+
+    public synchronized void release(long fromDay, long toDay) {
+        if (words.length == 0 || fromDay >= toDay) {
+            return;
+        }
+        long lo = Math.max(fromDay, baseDay);
+        long hi = Math.min(toDay, endDay());
+        if (lo < hi) {
+            forEachWord(lo, hi, (index, mask) -> words[index] &= ~mask);
+        }
+    }
+
+    /**
+     * Отбрасывает слова, целиком лежащие до указанного дня (прошедшие ночи).
+     */
+    public synchronized void trimBefore(long day) {
+        long alignedDay = Math.floorDiv(day, WORD_BITS) * WORD_BITS;
+        if (words.length == 0 || alignedDay <= baseDay) {
+            return;
+        }
+        int dropWords = (int) Math.min(words.length, (alignedDay - baseDay) >>> WORD_SHIFT);
+        words = Arrays.copyOfRange(words, dropWords, words.length);
+        baseDay = alignedDay;
+    }
+
+    private boolean anySet(long fromDay, long toDay) {
+        if (words.length == 0 || fromDay >= toDay) {
+            return false;
+        }
+        long lo = Math.max(fromDay, baseDay);
+        long hi = Math.min(toDay, endDay());
+        if (lo >= hi) {
+            return false;
+        }
+        int first = wordIndex(lo);
+        int last = wordIndex(hi - 1);
+        for (int i = first; i <= last; i++) {
+            if ((words[i] & mask(i, lo, hi)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void forEachWord(long lo, long hi, WordAction action) {
+        int first = wordIndex(lo);
+        int last = wordIndex(hi - 1);
+        for (int i = first; i <= last; i++) {
+            action.apply(i, mask(i, lo, hi));
+        }
+    }
+
+    private long mask(int index, long lo, long hi) {
+        long wordStart = baseDay + ((long) index << WORD_SHIFT);
+        int fromBit = (int) Math.max(0, lo - wordStart);
+        int toBit = (int) Math.min(WORD_BITS, hi - wordStart);
+        long upper = toBit == WORD_BITS ? -1L : (1L << toBit) - 1;
+        return upper & (-1L << fromBit);
+    }
+
+    private void ensureCapacity(long fromDay, long toDay) {
+        long alignedFrom = Math.floorDiv(fromDay, WORD_BITS) * WORD_BITS;
+        long alignedTo = Math.floorDiv(toDay + WORD_BITS - 1, WORD_BITS) * WORD_BITS;
+
+        if (words.length == 0) {
+            baseDay = alignedFrom;
+            words = new long[(int) ((alignedTo - alignedFrom) >>> WORD_SHIFT)];
+            return;
+        }
+
+        long newBase = Math.min(baseDay, alignedFrom);
+        long newEnd = Math.max(endDay(), alignedTo);
+        if (newBase == baseDay && newEnd == endDay()) {
+            return;
+        }
+
+        long[] grown = new long[(int) ((newEnd - newBase) >>> WORD_SHIFT)];
+        System.arraycopy(words, 0, grown, (int) ((baseDay - newBase) >>> WORD_SHIFT), words.length);
+        words = grown;
+        baseDay = newBase;
+    }
+
+    private long endDay() {
+        return baseDay + ((long) words.length << WORD_SHIFT);
+    }
+
+    private int wordIndex(long day) {
+        return (int) ((day - baseDay) >>> WORD_SHIFT);
+    }
+
+    @FunctionalInterface
+    private interface WordAction {
+        void apply(int index, long mask);
+    }
+}
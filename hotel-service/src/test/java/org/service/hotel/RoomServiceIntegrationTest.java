@@ -0,0 +1,216 @@
+package org.service.hotel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.service.hotel.dto.CreateRoomRequest;
+import org.service.hotel.dto.GroupHoldRequest;
+import org.service.hotel.dto.RoomAvailabilityRequest;
+import org.service.hotel.dto.RoomReleaseRequest;
+import org.service.hotel.entity.Hotel;
+import org.service.hotel.entity.Room;
+import org.service.hotel.entity.RoomReservation;
+import org.service.hotel.entity.RoomReservationNight;
+import org.service.hotel.exception.RoomNotAvailableException;
+import org.service.hotel.repository.RoomReservationNightRepository;
+import org.service.hotel.repository.RoomReservationRepository;
+import org.service.hotel.service.HotelService;
+import org.service.hotel.service.RoomLockManager;
+import org.service.hotel.service.RoomService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RoomServiceIntegrationTest {
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private RoomReservationRepository roomReservationRepository;
+
+    @Autowired
+    private RoomReservationNightRepository roomReservationNightRepository;
+
+    @SpyBean
+    private RoomLockManager roomLockManager;
+
+    private Long hotelId;
+    private Long roomId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @BeforeEach
+    void setUp() {
+        Hotel hotel = hotelService.createHotel(Hotel.builder()
+                .name("Test Hotel")
+                .address("Test Address")
+                .build());
+        hotelId = hotel.getId();
+        roomId = roomService.createRoomByRequest(CreateRoomRequest.builder()
+                .number("101")
+                .type("STANDARD")
+                .price(100.0)
+                .hotelId(hotelId)
+                .build()).getId();
+
+        startDate = LocalDate.now().plusDays(10);
+        endDate = LocalDate.now().plusDays(12);
+    }
+
+    @Test
+    void confirmReservation_OtherSagaHold_NotConfirmed() {
+        // Arrange
+        assertTrue(roomService.confirmAvailability(roomId, request(corr("b"))));
+
+        // Act
+        boolean confirmed = roomService.confirmReservation(roomId, request(corr("a")));
+
+        // Assert
+        assertFalse(confirmed);
+        List<RoomReservation> reservations = roomReservationRepository.findByRoomIdAndCorrelationId(roomId, corr("b"));
+        assertEquals(1, reservations.size());
+        assertEquals(RoomReservation.ReservationStatus.HELD, reservations.get(0).getStatus());
+    }
+
+    @Test
+    void confirmReservation_OwnHold_Confirmed() {
+        // Arrange
+        assertTrue(roomService.confirmAvailability(roomId, request(corr("a"))));
+
+        // Act
+        boolean confirmed = roomService.confirmReservation(roomId, request(corr("a")));
+
+        // Assert
+        assertTrue(confirmed);
+        assertEquals(RoomReservation.ReservationStatus.CONFIRMED,
+                roomReservationRepository.findByRoomIdAndCorrelationId(roomId, corr("a")).get(0).getStatus());
+    }
+
+    @Test
+    void releaseRooms_OnlySagaOwnReservationReleased() {
+        // Arrange
+        assertTrue(roomService.confirmAvailability(roomId, request(corr("a"))));
+        assertTrue(roomService.confirmReservation(roomId, request(corr("a"))));
+        LocalDate otherStart = endDate.plusDays(1);
+        assertTrue(roomService.confirmAvailability(roomId,
+                new RoomAvailabilityRequest(otherStart, otherStart.plusDays(1), corr("b"))));
+
+        // Act
+        roomService.releaseRooms(List.of(new RoomReleaseRequest(roomId, otherStart, otherStart.plusDays(1), corr("b"))));
+
+        // Assert
+        assertTrue(roomReservationRepository.findByRoomIdAndCorrelationId(roomId, corr("b")).isEmpty());
+        assertEquals(1, roomReservationRepository.findByRoomIdAndCorrelationId(roomId, corr("a")).size());
+        assertTrue(roomService.isRoomAvailable(roomId, otherStart, otherStart.plusDays(1)));
+        assertFalse(roomService.isRoomAvailable(roomId, startDate, endDate));
+    }
+
+    @Test
+    void releaseRooms_WithoutCorrelationId_Rejected() {
+        // Arrange
+        assertTrue(roomService.confirmAvailability(roomId, request(corr("a"))));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> roomService.releaseRooms(
+                List.of(new RoomReleaseRequest(roomId, startDate, endDate, null))));
+        assertEquals(1, roomReservationRepository.findByRoomIdAndCorrelationId(roomId, corr("a")).size());
+        assertFalse(roomService.isRoomAvailable(roomId, startDate, endDate));
+    }
+
+    @Test
+    void holdRooms_LocksOnlyRequestedAndChosenRooms() {
+        // Arrange
+        for (String number : List.of("102", "103")) {
+            roomService.createRoomByRequest(CreateRoomRequest.builder()
+                    .number(number)
+                    .type("STANDARD")
+                    .price(100.0)
+                    .hotelId(hotelId)
+                    .build());
+        }
+        GroupHoldRequest request = new GroupHoldRequest(startDate, endDate, List.of(
+                new GroupHoldRequest.Item(roomId, corr("a")),
+                new GroupHoldRequest.Item(null, corr("b"))));
+
+        // Act
+        List<Room> held = roomService.holdRooms(request);
+
+        // Assert
+        assertEquals(2, held.size());
+        assertEquals(roomId, held.get(0).getId());
+        verify(roomLockManager).withLocks(argThat(ids -> ids.size() == 2 && ids.contains(roomId)
+                && ids.contains(held.get(1).getId())), any());
+        assertEquals(1, roomReservationRepository.findByRoomIdAndCorrelationId(held.get(1).getId(), corr("b")).size());
+    }
+
+    @Test
+    void confirmAvailability_NightTakenByOtherInstance_Rejected() {
+        // Arrange: ночь занята через другой экземпляр, локальный календарь о ней не знает
+        takeNightElsewhere(roomId, startDate.plusDays(1));
+        assertTrue(roomService.isRoomAvailable(roomId, startDate, endDate));
+
+        // Act
+        boolean held = roomService.confirmAvailability(roomId, request(corr("a")));
+
+        // Assert
+        assertFalse(held);
+        assertTrue(roomReservationRepository.findByRoomIdAndCorrelationId(roomId, corr("a")).isEmpty());
+    }
+
+    @Test
+    void releaseRooms_NightsFreedForNextHold() {
+        // Arrange
+        assertTrue(roomService.confirmAvailability(roomId, request(corr("a"))));
+
+        // Act
+        roomService.releaseRooms(List.of(new RoomReleaseRequest(roomId, startDate, endDate, corr("a"))));
+
+        // Assert
+        assertTrue(roomService.confirmAvailability(roomId, request(corr("b"))));
+    }
+
+    @Test
+    void holdRooms_NightTakenByOtherInstance_Rejected() {
+        // Arrange
+        takeNightElsewhere(roomId, startDate);
+        GroupHoldRequest request = new GroupHoldRequest(startDate, endDate,
+                List.of(new GroupHoldRequest.Item(roomId, corr("a"))));
+
+        // Act & Assert
+        assertThrows(RoomNotAvailableException.class, () -> roomService.holdRooms(request));
+        assertTrue(roomReservationRepository.findByRoomIdAndCorrelationId(roomId, corr("a")).isEmpty());
+    }
+
+    private void takeNightElsewhere(Long room, LocalDate night) {
+        roomReservationNightRepository.save(RoomReservationNight.builder()
+                .reservationId(-room)
+                .roomId(room)
+                .night(night)
+                .build());
+    }
+
+    /**
+     * correlationId уникален для всей базы, поэтому у каждого теста свои
+     */
+    private String corr(String saga) {
+        return "corr-" + roomId + "-" + saga;
+    }
+
+    private RoomAvailabilityRequest request(String correlationId) {
+        return new RoomAvailabilityRequest(startDate, endDate, correlationId);
+    }
+}
@@ -0,0 +1,117 @@
+package org.service.hotel.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.service.common.util.InternalPrincipal;
+import org.service.hotel.dto.CreateRoomRequest;
+import org.service.hotel.entity.Hotel;
+import org.service.hotel.service.HotelService;
+import org.service.hotel.service.RoomService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Value("${internal.principal.secret}")
+    private String secret;
+
+    private Long roomId;
+
+    @BeforeEach
+    void setUp() {
+        Hotel hotel = hotelService.createHotel(Hotel.builder()
+                .name("Secured Hotel")
+                .address("Test Address")
+                .build());
+        roomId = roomService.createRoomByRequest(CreateRoomRequest.builder()
+                .number("201")
+                .type("STANDARD")
+                .price(100.0)
+                .hotelId(hotel.getId())
+                .build()).getId();
+    }
+
+    @Test
+    void sagaCall_WithoutPrincipal_Forbidden() throws Exception {
+        mockMvc.perform(confirmAvailability("corr-anonymous"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void sagaCall_SignedServicePrincipal_Allowed() throws Exception {
+        mockMvc.perform(confirmAvailability("corr-service")
+                        .header(InternalPrincipal.HEADER, principal("booking-service", InternalPrincipal.SERVICE_ROLE)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+    }
+
+    @Test
+    void sagaCall_ForgedPrincipal_Forbidden() throws Exception {
+        String principal = InternalPrincipal.sign("booking-service", null, InternalPrincipal.SERVICE_ROLE,
+                Instant.now().getEpochSecond() + 60, "otherKey".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(confirmAvailability("corr-forged").header(InternalPrincipal.HEADER, principal))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void sagaCall_UserPrincipalFromGateway_Forbidden() throws Exception {
+        mockMvc.perform(confirmAvailability("corr-user").header(InternalPrincipal.HEADER, principal("alice", "USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/hotels/rooms/release-batch")
+                        .header(InternalPrincipal.HEADER, principal("alice", "USER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void readCall_UserPrincipalFromGateway_Allowed() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(20);
+        mockMvc.perform(get("/api/hotels/rooms/{id}/availability", roomId)
+                        .header(InternalPrincipal.HEADER, principal("alice", "USER"))
+                        .param("startDate", startDate.toString())
+                        .param("endDate", startDate.plusDays(2).toString()))
+                .andExpect(status().isOk());
+    }
+
+    private String principal(String username, String role) {
+        return InternalPrincipal.sign(username, 7L, role, Instant.now().getEpochSecond() + 60,
+                secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletRequestBuilder confirmAvailability(String correlationId) {
+        LocalDate startDate = LocalDate.now().plusDays(20);
+        return post("/api/hotels/rooms/{id}/confirm-availability", roomId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"startDate\":\"" + startDate + "\",\"endDate\":\"" + startDate.plusDays(2)
+                        + "\",\"correlationId\":\"" + correlationId + "\"}");
+    }
+}
@@ -3,8 +3,10 @@ package org.service.hotel.repository;
 import org.junit.jupiter.api.Test;
 import org.service.hotel.entity.Hotel;
 import org.service.hotel.entity.Room;
+import org.service.hotel.service.RoomAvailabilityCalendar;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
@@ -16,6 +18,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
 @ActiveProfiles("test")
+@Import(RoomAvailabilityCalendar.class)
 class RoomRepositoryTest {
 
     @Autowired
@@ -24,6 +27,9 @@ class RoomRepositoryTest {
     @Autowired
     private HotelRepository hotelRepository;
 
+    @Autowired
+    private RoomAvailabilityCalendar availabilityCalendar;
+
     @Test
     void findAvailableRooms() {
         // Arrange
@@ -51,18 +57,87 @@ class RoomRepositoryTest {
 
         roomRepository.save(room1);
         roomRepository.save(room2);
+        availabilityCalendar.registerRoom(room1);
+        availabilityCalendar.registerRoom(room2);
 
         LocalDate startDate = LocalDate.now().plusDays(1);
         LocalDate endDate = LocalDate.now().plusDays(3);
 
         // Act
-        List<Room> availableRooms = roomRepository.findAvailableRooms(startDate, endDate);
+        List<Room> availableRooms = availableIn(savedHotel, startDate, endDate);
 
         // Assert
         assertEquals(1, availableRooms.size());
         assertTrue(availableRooms.get(0).getAvailable());
     }
 
+    @Test
+    void findAvailableRooms_ExcludesHeldNights() {
+        // Arrange
+        Hotel savedHotel = hotelRepository.save(Hotel.builder()
+                .name("Test Hotel")
+                .address("Test Address")
+                .build());
+
+        Room room = roomRepository.save(Room.builder()
+                .hotel(savedHotel)
+                .number("201")
+                .type("STANDARD")
+                .price(100.0)
+                .available(true)
+                .timesBooked(0)
+                .build());
+        availabilityCalendar.registerRoom(room);
+
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        availabilityCalendar.hold(room.getId(), checkIn, checkIn.plusDays(3));
+
+        // Act & Assert
+        assertTrue(availableIn(savedHotel, checkIn.plusDays(1), checkIn.plusDays(2)).isEmpty());
+        assertEquals(1, availableIn(savedHotel, checkIn.plusDays(3), checkIn.plusDays(5)).size());
+        assertEquals(1, availableIn(savedHotel, checkIn.minusDays(2), checkIn).size());
+
+        availabilityCalendar.release(room.getId(), checkIn, checkIn.plusDays(3));
+        assertEquals(1, availableIn(savedHotel, checkIn.plusDays(1), checkIn.plusDays(2)).size());
+    }
+
+    @Test
+    void findAvailableRooms_LeastBookedFirst() {
+        // Arrange
+        Hotel savedHotel = hotelRepository.save(Hotel.builder()
+                .name("Test Hotel")
+                .address("Test Address")
+                .build());
+
+        Room busy = roomRepository.save(Room.builder()
+                .hotel(savedHotel)
+                .number("301")
+                .type("STANDARD")
+                .price(100.0)
+                .available(true)
+                .timesBooked(5)
+                .build());
+        Room quiet = roomRepository.save(Room.builder()
+                .hotel(savedHotel)
+                .number("302")
+                .type("STANDARD")
+                .price(100.0)
+                .available(true)
+                .timesBooked(1)
+                .build());
+        availabilityCalendar.registerRoom(busy);
+        availabilityCalendar.registerRoom(quiet);
+
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+
+        // Act
+        List<Room> availableRooms = availableIn(savedHotel, checkIn, checkIn.plusDays(2));
+
+        // Assert
+        assertEquals(List.of(quiet.getId(), busy.getId()), availableRooms.stream().map(Room::getId).toList());
+        assertEquals(savedHotel.getId(), availableRooms.get(0).getHotel().getId());
+    }
+
     @Test
     void findByHotelId() {
         // Arrange
@@ -118,11 +193,20 @@ class RoomRepositoryTest {
         roomRepository.save(room);
 
         // Act
-        Optional<Room> foundRoom = roomRepository.findByRoomNumberAndHotelId("101", savedHotel.getId());
+        Optional<Room> foundRoom = roomRepository.findByNumberAndHotelId("101", savedHotel.getId());
 
         // Assert
         assertTrue(foundRoom.isPresent());
         assertEquals("101", foundRoom.get().getNumber());
         assertEquals(savedHotel.getId(), foundRoom.get().getHotel().getId());
     }
-}
\ No newline at end of file
+
+    /**
+     * Календарь - общий бин контекста и помнит номера соседних тестов, поэтому результат сужается до отеля теста
+     */
+    private List<Room> availableIn(Hotel hotel, LocalDate startDate, LocalDate endDate) {
+        return roomRepository.findAvailableRooms(startDate, endDate).stream()
+                .filter(room -> room.getHotel().getId().equals(hotel.getId()))
+                .toList();
+    }
+}
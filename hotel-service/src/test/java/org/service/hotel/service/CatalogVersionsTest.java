@@ -0,0 +1,94 @@
+package org.service.hotel.service;
+
+import org.junit.jupiter.api.Test;
+import org.service.hotel.repository.CatalogVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(CatalogVersions.class)
+// Версии фиксируются как в приложении, без общей транзакции теста
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogVersionsTest {
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private CatalogVersionRepository catalogVersionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void roomsChanged_ChangesRoomsETagOnly() {
+        String hotels = catalogVersions.hotelsETag();
+        String rooms = catalogVersions.roomsETag();
+
+        catalogVersions.roomsChanged();
+
+        assertEquals(hotels, catalogVersions.hotelsETag());
+        assertNotEquals(rooms, catalogVersions.roomsETag());
+        assertTrue(catalogVersions.roomsETag().startsWith("\"rooms-"));
+    }
+
+    @Test
+    void roomsChanged_VisibleToOtherInstanceAfterSync() {
+        CatalogVersions otherInstance = new CatalogVersions(catalogVersionRepository, transactionTemplate);
+        otherInstance.initialize();
+        String before = otherInstance.roomsETag();
+
+        catalogVersions.roomsChanged();
+        // Изменение уходит в catalog_versions фоновой синхронизацией, а не в транзакции изменения
+        assertEquals(before, otherInstance.roomsETag());
+
+        catalogVersions.synchronize();
+        otherInstance.synchronize();
+
+        assertNotEquals(before, otherInstance.roomsETag());
+        assertEquals(catalogVersions.roomsETag(), otherInstance.roomsETag());
+    }
+
+    @Test
+    void synchronize_OwnChange_KeepsETagChanged() {
+        String before = catalogVersions.hotelsETag();
+        catalogVersions.hotelsChanged();
+
+        catalogVersions.synchronize();
+
+        assertNotEquals(before, catalogVersions.hotelsETag());
+    }
+
+    @Test
+    void initialize_NewInstance_SameETag() {
+        catalogVersions.roomsChanged();
+        catalogVersions.synchronize();
+
+        // Рестарт или другой экземпляр не сбрасывает ETag клиентов
+        CatalogVersions restarted = new CatalogVersions(catalogVersionRepository, transactionTemplate);
+        restarted.initialize();
+
+        assertEquals(catalogVersions.roomsETag(), restarted.roomsETag());
+        assertEquals(catalogVersions.hotelsETag(), restarted.hotelsETag());
+    }
+
+    @Test
+    void hotelsChanged_RolledBack_ETagUnchanged() {
+        String before = catalogVersions.hotelsETag();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            catalogVersions.hotelsChanged();
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, catalogVersions.hotelsETag());
+    }
+}
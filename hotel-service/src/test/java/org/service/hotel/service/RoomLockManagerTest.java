@@ -0,0 +1,129 @@
+package org.service.hotel.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.service.hotel.entity.RoomLockProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomLockManagerTest {
+
+    private RoomLockManager createManager(int stripes) {
+        RoomLockProperties properties = new RoomLockProperties();
+        properties.setStripes(stripes);
+        return new RoomLockManager(properties);
+    }
+
+    private SimpleMeterRegistry bind(RoomLockManager lockManager) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        lockManager.bindTo(registry);
+        return registry;
+    }
+
+    // По одному счётчику захватов на полосу
+    private int stripeCount(RoomLockManager lockManager) {
+        return bind(lockManager).find("hotel.room.lock.acquisitions").functionCounters().size();
+    }
+
+    @Test
+    void stripeCount_RoundedUpToPowerOfTwo() {
+        assertEquals(64, stripeCount(createManager(64)));
+        assertEquals(16, stripeCount(createManager(10)));
+        assertEquals(1, stripeCount(createManager(0)));
+    }
+
+    @Test
+    void withLock_SameRoom_OperationsAreSerialized() throws Exception {
+        RoomLockManager lockManager = createManager(8);
+        int[] counter = new int[1];
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        lockManager.withLock(42L, () -> counter[0]++);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(80_000, counter[0]);
+    }
+
+    @Test
+    void withLock_ContendedAcquisition_IsCounted() throws Exception {
+        RoomLockManager lockManager = createManager(4);
+        SimpleMeterRegistry registry = bind(lockManager);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> lockManager.withLock(7L, () -> {
+            locked.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        holder.start();
+        locked.await(5, TimeUnit.SECONDS);
+
+        Thread waiter = new Thread(() -> lockManager.withLock(7L, () -> { }));
+        waiter.start();
+        Thread.sleep(100);
+        release.countDown();
+        holder.join(5000);
+        waiter.join(5000);
+
+        double contended = registry.find("hotel.room.lock.contention").functionTimers().stream()
+                .mapToDouble(FunctionTimer::count)
+                .sum();
+        assertEquals(1, contended);
+        assertEquals(2, registry.find("hotel.room.lock.acquisitions").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count)
+                .sum());
+    }
+
+    @Test
+    void withLocks_OppositeOrder_DoesNotDeadlock() throws Exception {
+        RoomLockManager lockManager = createManager(64);
+        int[] counter = new int[1];
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<?> forward = executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    lockManager.withLocks(List.of(1L, 2L, 3L), () -> counter[0]++);
+                }
+            });
+            Future<?> backward = executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    lockManager.withLocks(List.of(3L, 2L, 1L), () -> counter[0]++);
+                }
+            });
+            forward.get(10, TimeUnit.SECONDS);
+            backward.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(20_000, counter[0]);
+    }
+}
@@ -0,0 +1,67 @@
+package org.service.hotel.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    private final List<String> fired = new CopyOnWriteArrayList<>();
+    private final HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(10, 8, Runnable::run);
+
+    @Test
+    void schedule_PastDeadline_RunsImmediately() {
+        wheel.schedule(System.currentTimeMillis() - 1000, () -> fired.add("expired"));
+
+        assertEquals(List.of("expired"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_FiresTasksInDeadlineOrder() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        wheel.schedule(now + 60, () -> fired.add("second"));
+        wheel.schedule(now + 30, () -> fired.add("first"));
+        assertEquals(2, wheel.size());
+
+        drain(now + 500);
+
+        assertEquals(List.of("first", "second"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_DeadlineBeyondFirstLevel_FiresFromOverflowWheel() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        // 8 корзин по 10 мс покрывают 80 мс, дальше - следующий уровень
+        HierarchicalTimingWheel.Timeout timeout = wheel.schedule(now + 250, () -> fired.add("late"));
+
+        drain(now + 1000);
+
+        assertEquals(List.of("late"), fired);
+        assertTrue(System.currentTimeMillis() >= timeout.getDeadlineMillis());
+    }
+
+    @Test
+    void cancel_RemovesTaskBeforeDeadline() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        HierarchicalTimingWheel.Timeout timeout = wheel.schedule(now + 30, () -> fired.add("cancelled"));
+        wheel.schedule(now + 40, () -> fired.add("kept"));
+
+        timeout.cancel();
+        assertEquals(1, wheel.size());
+
+        drain(now + 500);
+
+        assertEquals(List.of("kept"), fired);
+    }
+
+    private void drain(long untilMillis) throws InterruptedException {
+        while (wheel.size() > 0 && System.currentTimeMillis() < untilMillis) {
+            wheel.advance(50);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.service.hotel.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NightCalendarTest {
+
+    private final long today = LocalDate.of(2025, 3, 1).toEpochDay();
+
+    @Test
+    void occupy_MarksOnlyRequestedNights() {
+        NightCalendar calendar = new NightCalendar();
+
+        calendar.occupy(today, today + 3);
+
+        assertFalse(calendar.isFree(today + 2, today + 4));
+        assertTrue(calendar.isFree(today + 3, today + 10));
+        assertTrue(calendar.isFree(today - 5, today));
+    }
+
+    @Test
+    void isFree_OverlappingNights_False() {
+        NightCalendar calendar = new NightCalendar();
+        calendar.occupy(today + 5, today + 8);
+
+        assertFalse(calendar.isFree(today, today + 6));
+        assertTrue(calendar.isFree(today, today + 5));
+    }
+
+    @Test
+    void occupy_AcrossWordBoundaries() {
+        NightCalendar calendar = new NightCalendar();
+        calendar.occupy(today + 60, today + 200);
+
+        assertFalse(calendar.isFree(today + 63, today + 65));
+        assertFalse(calendar.isFree(today + 199, today + 200));
+        assertTrue(calendar.isFree(today + 200, today + 300));
+
+        // Рост календаря в прошлое не теряет занятые ночи
+        calendar.occupy(today - 100, today - 90);
+        assertFalse(calendar.isFree(today + 120, today + 121));
+        assertFalse(calendar.isFree(today - 95, today - 94));
+    }
+
+    @Test
+    void release_FreesOnlyRequestedNights() {
+        NightCalendar calendar = new NightCalendar();
+        calendar.occupy(today, today + 10);
+
+        calendar.release(today + 2, today + 4);
+
+        assertTrue(calendar.isFree(today + 2, today + 4));
+        assertFalse(calendar.isFree(today + 1, today + 2));
+        assertFalse(calendar.isFree(today + 4, today + 5));
+    }
+
+    @Test
+    void trimBefore_DropsPastNights() {
+        NightCalendar calendar = new NightCalendar();
+        calendar.occupy(today - 200, today - 150);
+        calendar.occupy(today, today + 2);
+
+        calendar.trimBefore(today);
+
+        assertTrue(calendar.isFree(today - 200, today - 150));
+        assertFalse(calendar.isFree(today, today + 1));
+    }
+}